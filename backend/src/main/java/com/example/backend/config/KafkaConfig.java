@@ -0,0 +1,159 @@
+package com.example.backend.config;
+
+import com.example.backend.dto.Tick;
+import com.example.backend.dto.TickDeserializer;
+import com.example.backend.dto.TickSerializer;
+import com.example.backend.service.TickFingerprintCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.Serializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.boot.ssl.SslBundles;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.MicrometerProducerListener;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+import org.springframework.util.backoff.FixedBackOff;
+
+import java.util.Map;
+
+/**
+ * Kafka producer/listener 설정.
+ *
+ * 접속 정보 등 공통 설정은 spring.kafka.* (configmap)를 그대로 쓰고, value 직렬화만 용도별로 나눈다.
+ * - kafkaTemplate: 문자열 메시지 (거래량 순위, 호가 등)
+ * - tickKafkaTemplate / tickListenerContainerFactory: 실시간 체결 {@link Tick} 바이너리
+ * - rawKafkaTemplate: 디코딩하지 못한 원본 바이트 (DLT 전송용)
+ * - orderBookListenerContainerFactory: 호가 문자열. pod별 그룹이므로 오프셋을 커밋하지 않는다
+ * KafkaTemplate을 직접 등록하면 Spring Boot 기본 템플릿이 빠지므로 문자열 템플릿도 여기서 만든다.
+ * producer는 배치/linger/압축/idempotence를 켠 처리량 위주 설정을 기본으로 한다.
+ */
+@Configuration
+public class KafkaConfig {
+
+    // 처리량 위주 producer 기본값. spring.kafka.producer.* 로 명시한 값이 있으면 그쪽이 우선한다
+    @Value("${kafka.producer.linger-ms:5}")
+    private int lingerMs;
+    @Value("${kafka.producer.batch-size:65536}")
+    private int batchSize;
+    @Value("${kafka.producer.compression-type:lz4}")
+    private String compressionType;
+    @Value("${kafka.producer.buffer-memory:67108864}")
+    private long bufferMemory;
+    // 버퍼가 가득 찼을 때 send()가 기다리는 최대 시간. 웹소켓 리더 스레드를 오래 막지 않도록 짧게 둔다
+    @Value("${kafka.producer.max-block-ms:100}")
+    private long maxBlockMs;
+
+    private Map<String, Object> producerProperties(KafkaProperties kafkaProperties, SslBundles sslBundles) {
+        Map<String, Object> props = kafkaProperties.buildProducerProperties(sslBundles);
+        props.putIfAbsent(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+        props.putIfAbsent(ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
+        props.putIfAbsent(ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType);
+        props.putIfAbsent(ProducerConfig.BUFFER_MEMORY_CONFIG, bufferMemory);
+        props.putIfAbsent(ProducerConfig.MAX_BLOCK_MS_CONFIG, maxBlockMs);
+        // 재시도해도 중복/순서 뒤바뀜이 없도록 (idempotence는 acks=all, in-flight 5 이하가 필요)
+        props.putIfAbsent(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        props.putIfAbsent(ProducerConfig.ACKS_CONFIG, "all");
+        props.putIfAbsent(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION_CONFIG, 5);
+        return props;
+    }
+
+    // kafka.producer.* 클라이언트 지표(batch-size-avg, buffer-exhausted-total, record-send-rate 등)를 Micrometer로 노출
+    private <V> ProducerFactory<String, V> producerFactory(KafkaProperties kafkaProperties, SslBundles sslBundles,
+                                                           MeterRegistry meterRegistry, Serializer<V> valueSerializer) {
+        DefaultKafkaProducerFactory<String, V> factory = new DefaultKafkaProducerFactory<>(
+                producerProperties(kafkaProperties, sslBundles), new StringSerializer(), valueSerializer);
+        factory.addListener(new MicrometerProducerListener<>(meterRegistry));
+        return factory;
+    }
+
+    @Bean
+    public ProducerFactory<String, String> producerFactory(KafkaProperties kafkaProperties, SslBundles sslBundles,
+                                                           MeterRegistry meterRegistry) {
+        return producerFactory(kafkaProperties, sslBundles, meterRegistry, new StringSerializer());
+    }
+
+    @Bean
+    public KafkaTemplate<String, String> kafkaTemplate(ProducerFactory<String, String> producerFactory) {
+        return new KafkaTemplate<>(producerFactory);
+    }
+
+    @Bean
+    public KafkaTemplate<String, Tick> tickKafkaTemplate(KafkaProperties kafkaProperties, SslBundles sslBundles,
+                                                         MeterRegistry meterRegistry) {
+        return new KafkaTemplate<>(producerFactory(kafkaProperties, sslBundles, meterRegistry, new TickSerializer()));
+    }
+
+    @Bean
+    public KafkaTemplate<String, byte[]> rawKafkaTemplate(KafkaProperties kafkaProperties, SslBundles sslBundles,
+                                                          MeterRegistry meterRegistry) {
+        return new KafkaTemplate<>(producerFactory(kafkaProperties, sslBundles, meterRegistry, new ByteArraySerializer()));
+    }
+
+    // 디코딩에 실패한 레코드는 예외 대신 null 값 + 예외 헤더로 전달된다
+    private DefaultKafkaConsumerFactory<String, Tick> tickConsumerFactory(KafkaProperties kafkaProperties, SslBundles sslBundles,
+                                                                         Map<String, Object> overrides) {
+        Map<String, Object> props = kafkaProperties.buildConsumerProperties(sslBundles);
+        props.putAll(overrides);
+        return new DefaultKafkaConsumerFactory<>(props,
+                new StringDeserializer(), new ErrorHandlingDeserializer<>(new TickDeserializer()));
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, Tick> tickListenerContainerFactory(
+            KafkaProperties kafkaProperties, SslBundles sslBundles, TickFingerprintCache fingerprintCache,
+            @Value("${kafka.listener.realtime.max-poll-records:500}") int maxPollRecords,
+            @Value("${kafka.listener.realtime.retry-backoff-ms:1000}") long retryBackoffMs) {
+        ConcurrentKafkaListenerContainerFactory<String, Tick> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(tickConsumerFactory(kafkaProperties, sslBundles,
+                Map.of(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords)));
+        // poll 한 번의 레코드를 List로 받아 Redis에 한꺼번에 쓰고, 리스너가 정상 반환한 뒤에 오프셋을 커밋한다
+        factory.setBatchListener(true);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
+        // 리스너가 던지는 건 복구 토픽/DLT 전송 실패뿐이다. 기본 핸들러는 몇 번 재시도 후 커밋해 버리므로
+        // 전송이 될 때까지 같은 배치를 계속 다시 받는다 (저장/복구는 멱등이라 중복돼도 결과는 같다)
+        factory.setCommonErrorHandler(new DefaultErrorHandler(new FixedBackOff(retryBackoffMs, FixedBackOff.UNLIMITED_ATTEMPTS)));
+        // 파티션이 재배정되면 중복 체크 fingerprint를 비운다
+        factory.getContainerProperties().setConsumerRebalanceListener(fingerprintCache);
+        return factory;
+    }
+
+    // 체결 복구(재시도) 토픽용. @RetryableTopic은 레코드 단위 리스너만 지원한다
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, Tick> tickRecordListenerContainerFactory(
+            KafkaProperties kafkaProperties, SslBundles sslBundles) {
+        ConcurrentKafkaListenerContainerFactory<String, Tick> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(tickConsumerFactory(kafkaProperties, sslBundles, Map.of()));
+        return factory;
+    }
+
+    /**
+     * 호가 토픽용. pod마다 별도 그룹(HOSTNAME)으로 전부 읽는데, 오프셋을 커밋하면 pod가 재시작될 때마다
+     * 커밋된 오프셋을 가진 그룹이 브로커에 남는다. 커밋하지 않으면 빈 그룹은 브로커가 바로 정리하고,
+     * 재시작한 pod는 어차피 최신 호가부터 읽으면 된다.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, String> orderBookListenerContainerFactory(
+            KafkaProperties kafkaProperties, SslBundles sslBundles) {
+        Map<String, Object> props = kafkaProperties.buildConsumerProperties(sslBundles);
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+        ConcurrentKafkaListenerContainerFactory<String, String> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(new DefaultKafkaConsumerFactory<>(props, new StringDeserializer(), new StringDeserializer()));
+        // 리스너가 acknowledge하지 않으므로 컨테이너도 커밋하지 않는다
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        return factory;
+    }
+}
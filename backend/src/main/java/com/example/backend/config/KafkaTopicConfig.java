@@ -0,0 +1,43 @@
+package com.example.backend.config;
+
+import org.apache.kafka.clients.admin.NewTopic;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
+
+/**
+ * 실시간 토픽 설정.
+ * 체결/호가는 종목마다 토픽을 만들지 않고 stockId를 key로 한 파티션 토픽 하나씩에 보낸다.
+ * 같은 종목은 항상 같은 파티션으로 가므로 종목 내 순서가 유지되고, 컨슈머 병렬도는 파티션 수로 조절한다.
+ */
+@Configuration
+public class KafkaTopicConfig {
+
+    // @Value / @KafkaListener에서 같이 쓰는 토픽 이름 (프로퍼티로 변경 가능)
+    public static final String REALTIME_TOPIC = "${kafka.topic.realtime:realtime-data}";
+    public static final String ORDERBOOK_TOPIC = "${kafka.topic.orderbook:orderbook-data}";
+    // Redis 저장에 실패한 체결을 다시 처리하는 토픽. 재시도 토픽(-retry-N)과 DLT(-dlt)는 @RetryableTopic이 만든다
+    public static final String REALTIME_RECOVERY_TOPIC = "${kafka.topic.realtime-recovery:realtime-data-recovery}";
+    public static final String VOLUME_RANK_TOPIC = "volume-rank-topic";
+    public static final String DEAD_LETTER_SUFFIX = "-dlt";
+
+    // KafkaAdmin이 기동 시 없으면 생성한다. 이미 있으면 파티션 수가 적을 때만 늘린다
+    @Bean
+    public NewTopic realtimeTopic(@Value(REALTIME_TOPIC) String name,
+                                  @Value("${kafka.topic.realtime.partitions:12}") int partitions) {
+        return TopicBuilder.name(name).partitions(partitions).build();
+    }
+
+    @Bean
+    public NewTopic orderBookTopic(@Value(ORDERBOOK_TOPIC) String name,
+                                   @Value("${kafka.topic.orderbook.partitions:12}") int partitions) {
+        return TopicBuilder.name(name).partitions(partitions).build();
+    }
+
+    // 디코딩할 수 없는 체결 원본을 보관 (재시도하지 않음)
+    @Bean
+    public NewTopic realtimeDeadLetterTopic(@Value(REALTIME_TOPIC) String realtimeTopic) {
+        return TopicBuilder.name(realtimeTopic + DEAD_LETTER_SUFFIX).partitions(1).build();
+    }
+}
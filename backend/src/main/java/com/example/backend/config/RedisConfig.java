@@ -1,22 +1,29 @@
 package com.example.backend.config;
 
+import io.lettuce.core.ClientOptions;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisSentinelConfiguration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.connection.RedisNode;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import lombok.extern.slf4j.Slf4j;
 
+import java.time.Duration;
+import java.util.concurrent.Executors;
+
 @Configuration
 @Slf4j
 public class RedisConfig {
 
     @Bean
-    public RedisConnectionFactory redisConnectionFactory() {
+    public RedisConnectionFactory redisConnectionFactory(@Value("${redis.command-timeout-ms:1500}") long commandTimeoutMs) {
         // Sentinel 환경변수 읽기
         String sentinelMaster = System.getenv("spring.redis.sentinel.master");
         String sentinelNodes = System.getenv("spring.redis.sentinel.nodes");
@@ -46,7 +53,17 @@ public class RedisConfig {
             }
         }
 
-        return new LettuceConnectionFactory(sentinelConfig);
+        // 기본 명령 타임아웃(60초)이면 Redis 장애 때 체결 stripe 스레드가 모두 그만큼 막힌다.
+        // 짧게 끊고 실패한 체결은 복구 토픽으로 넘긴다 (RedisCircuitBreaker)
+        LettuceClientConfiguration clientConfig = LettuceClientConfiguration.builder()
+                .commandTimeout(Duration.ofMillis(commandTimeoutMs))
+                .clientOptions(ClientOptions.builder()
+                        // 연결이 끊긴 동안 명령을 쌓아 두지 않고 바로 실패시킨다
+                        .disconnectedBehavior(ClientOptions.DisconnectedBehavior.REJECT_COMMANDS)
+                        .build())
+                .build();
+
+        return new LettuceConnectionFactory(sentinelConfig, clientConfig);
     }
 
     @Bean
@@ -64,6 +81,19 @@ public class RedisConfig {
         return template;
     }
 
+    // pub/sub 수신. 기본 executor는 메시지마다 스레드를 만들므로 단일 스레드로 순서대로 처리한다
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.setTaskExecutor(Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "redis-pubsub");
+            thread.setDaemon(true);
+            return thread;
+        }));
+        return container;
+    }
+
     @Bean
     public HashOperations<String, String, String> hashOperations(RedisTemplate<String, String> redisTemplate) {
         return redisTemplate.opsForHash();
@@ -1,27 +1,85 @@
 package com.example.backend.config;
 
 import com.example.backend.websocket.StockWebSocketHandler;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.web.socket.WebSocketExtension;
 import org.springframework.web.socket.config.annotation.EnableWebSocket;
 import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
 import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+import org.springframework.web.socket.server.support.DefaultHandshakeHandler;
+
+import java.util.List;
 
 @Configuration
 @EnableWebSocket
 public class WebSocketConfig implements WebSocketConfigurer {
 
+    private static final String PERMESSAGE_DEFLATE = "permessage-deflate";
+
+    private final MeterRegistry meterRegistry;
+    // 세션별 송신 큐 크기. 넘으면 종목별 최신 메시지만 남긴다
+    private final int sendQueueCapacity;
+    // 이 시간 동안 밀린 전송을 따라잡지 못한 세션은 끊는다
+    private final long laggardTimeoutMs;
+    // 0보다 크면 세션마다 이 시간(ms) 동안 모인 메시지를 JSON 배열 프레임 하나로 보낸다 (예: 50)
+    private final long batchWindowMs;
+    // 세션 writer 스레드 수. 0 이하면 코어 수 x 2
+    private final int writerThreads;
+    // 전송 한 건이 막혀 있을 수 있는 최대 시간. 넘으면 그 세션을 끊고 writer 스레드를 돌려받는다
+    private final long sendTimeoutMs;
+    // 브라우저가 요청하면 permessage-deflate로 프레임을 압축한다 (Tomcat 내장 확장)
+    private final boolean permessageDeflate;
+
+    public WebSocketConfig(MeterRegistry meterRegistry,
+                           @Value("${websocket.send.queue-capacity:1000}") int sendQueueCapacity,
+                           @Value("${websocket.send.laggard-timeout-ms:10000}") long laggardTimeoutMs,
+                           @Value("${websocket.send.batch-window-ms:0}") long batchWindowMs,
+                           @Value("${websocket.send.writer-threads:0}") int writerThreads,
+                           @Value("${websocket.send.timeout-ms:5000}") long sendTimeoutMs,
+                           @Value("${websocket.permessage-deflate:true}") boolean permessageDeflate) {
+        this.meterRegistry = meterRegistry;
+        this.sendQueueCapacity = sendQueueCapacity;
+        this.laggardTimeoutMs = laggardTimeoutMs;
+        this.batchWindowMs = batchWindowMs;
+        this.writerThreads = writerThreads;
+        this.sendTimeoutMs = sendTimeoutMs;
+        this.permessageDeflate = permessageDeflate;
+    }
+
     @Override
     public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
         registry.addHandler(stockWebSocketHandler(), "/ws/stock")
+                .setHandshakeHandler(handshakeHandler())
 
                 .setAllowedOrigins("https://kpryu.xyz"); // 프론트엔드 도메인 
                 //.setAllowedOrigins("http://localhost:3000"); // 로컬테스트 시 사용
 
     }
 
+    /** 컨테이너가 지원하는 확장 중 permessage-deflate만 협상한다. 끄면 압축 없이 연결 */
+    private DefaultHandshakeHandler handshakeHandler() {
+        return new DefaultHandshakeHandler() {
+            @Override
+            protected List<WebSocketExtension> filterRequestedExtensions(ServerHttpRequest request,
+                                                                         List<WebSocketExtension> requestedExtensions,
+                                                                         List<WebSocketExtension> supportedExtensions) {
+                if (!permessageDeflate) {
+                    return List.of();
+                }
+                return super.filterRequestedExtensions(request, requestedExtensions, supportedExtensions).stream()
+                        .filter(extension -> PERMESSAGE_DEFLATE.equals(extension.getName()))
+                        .toList();
+            }
+        };
+    }
+
     @Bean
     public StockWebSocketHandler stockWebSocketHandler() {
-        return new StockWebSocketHandler();
+        return new StockWebSocketHandler(meterRegistry, sendQueueCapacity, laggardTimeoutMs, batchWindowMs,
+                writerThreads, sendTimeoutMs);
     }
 }
\ No newline at end of file
@@ -1,8 +1,10 @@
 package com.example.backend.controller;
 
+import com.example.backend.service.TickHistoryStore;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.util.*;
 
@@ -10,21 +12,45 @@ import java.util.*;
 @RequestMapping("/api")
 public class RedisController {
 
-    private final RedisTemplate<String, String> redisTemplate;
+    // 구간 조회 한 번에 돌려주는 최대 체결 수
+    private static final int MAX_RANGE_COUNT = 10000;
+
+    private final TickHistoryStore tickHistoryStore;
 
     @Autowired
-    public RedisController(RedisTemplate<String, String> redisTemplate) {
-        this.redisTemplate = redisTemplate;
+    public RedisController(TickHistoryStore tickHistoryStore) {
+        this.tickHistoryStore = tickHistoryStore;
     }
 
     @GetMapping("/redis-data/{stockId}")
     public List<String> getRedisDataByStockId(@PathVariable String stockId) {
-        String redisKey = "stock:" + stockId;
         try {
-            return redisTemplate.opsForList().range(redisKey, 0, -1); // 최신 1개 데이터
+            return tickHistoryStore.latest(stockId, TickHistoryStore.HISTORY_SIZE); // 최신 5개 데이터
+        } catch (Exception e) {
+            e.printStackTrace();
+            throw new RuntimeException("Redis 연결 오류: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 체결 시각(epoch ms) 구간의 체결 이력. redis.tick-history.mode=stream 일 때만 사용 가능.
+     * 예) /api/redis-data/005930/range?from=1686530000000&to=1686533600000&order=asc
+     */
+    @GetMapping("/redis-data/{stockId}/range")
+    public List<String> getRedisDataRange(@PathVariable String stockId,
+                                          @RequestParam(required = false) Long from,
+                                          @RequestParam(required = false) Long to,
+                                          @RequestParam(defaultValue = "1000") int count,
+                                          @RequestParam(defaultValue = "desc") String order) {
+        if (!tickHistoryStore.isStreamMode()) {
+            throw new ResponseStatusException(HttpStatus.NOT_IMPLEMENTED, "체결 구간 조회는 stream 저장 모드에서만 지원합니다");
+        }
+        int limit = Math.min(Math.max(count, 1), MAX_RANGE_COUNT);
+        try {
+            return tickHistoryStore.range(stockId, from, to, limit, !"asc".equalsIgnoreCase(order));
         } catch (Exception e) {
             e.printStackTrace();
             throw new RuntimeException("Redis 연결 오류: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+}
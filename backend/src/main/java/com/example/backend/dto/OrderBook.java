@@ -0,0 +1,203 @@
+package com.example.backend.dto;
+
+import com.example.backend.websocket.KisFrameParser;
+
+/**
+ * 실시간 호가(H0STASP0) 10단계 호가창. 종목당 하나를 만들어 두고 값만 제자리에서 갱신한다.
+ *
+ * 호가/잔량은 고정 크기 int[]/long[]에 담고, {@link #update(KisFrameParser)}는 객체를 만들지 않는다.
+ * 체결보다 훨씬 자주 들어오므로 바뀐 값이 있을 때만 다음 단계로 넘긴다.
+ * 내부 배열을 그대로 갱신하므로 한 스레드에서만 update할 것.
+ */
+public final class OrderBook {
+
+    public static final String TR_ID = "H0STASP0";
+    public static final int FIELD_COUNT = 59;
+    public static final int DEPTH = 10;
+
+    // H0STASP0 필드 위치
+    private static final int MKSC_SHRN_ISCD = 0;
+    private static final int BSOP_HOUR = 1;
+    private static final int ASKP1 = 3;          // ASKP1 ~ ASKP10
+    private static final int BIDP1 = 13;         // BIDP1 ~ BIDP10
+    private static final int ASKP_RSQN1 = 23;    // ASKP_RSQN1 ~ ASKP_RSQN10
+    private static final int BIDP_RSQN1 = 33;    // BIDP_RSQN1 ~ BIDP_RSQN10
+    private static final int TOTAL_ASKP_RSQN = 43;
+    private static final int TOTAL_BIDP_RSQN = 44;
+    private static final int ANTC_CNPR = 47;
+    private static final int ANTC_CNQN = 48;
+    private static final int ACML_VOL = 53;
+
+    private static final ThreadLocal<KisFrameParser> RECORD_PARSER =
+            ThreadLocal.withInitial(() -> new KisFrameParser(FIELD_COUNT));
+
+    private final String stockId;
+    private final int[] askPrices = new int[DEPTH];
+    private final int[] bidPrices = new int[DEPTH];
+    private final long[] askQuantities = new long[DEPTH];
+    private final long[] bidQuantities = new long[DEPTH];
+    private int time;
+    private long totalAskQuantity;
+    private long totalBidQuantity;
+    private int expectedPrice;
+    private long expectedQuantity;
+    private long accumulatedVolume;
+
+    public OrderBook(String stockId) {
+        this.stockId = stockId;
+    }
+
+    /** '^'로 구분된 H0STASP0 레코드 원문 하나(헤더 없음)로 호가창을 새로 만든다 */
+    public static OrderBook parse(String recordText) {
+        KisFrameParser record = RECORD_PARSER.get().parseRecord(recordText);
+        OrderBook book = new OrderBook(record.text(MKSC_SHRN_ISCD));
+        book.update(record);
+        return book;
+    }
+
+    /**
+     * 파서가 가리키는 현재 레코드로 호가창을 갱신한다.
+     *
+     * @return 호가, 잔량, 총잔량, 예상체결가/수량 중 하나라도 바뀌었으면 true (시각, 누적거래량만 바뀐 경우는 false)
+     */
+    public boolean update(KisFrameParser record) {
+        if (record.fieldsPerRecord() != FIELD_COUNT) {
+            throw new IllegalArgumentException(TR_ID + " record must have " + FIELD_COUNT + " fields");
+        }
+        boolean changed = false;
+        for (int i = 0; i < DEPTH; i++) {
+            changed |= set(askPrices, i, record.intValue(ASKP1 + i));
+            changed |= set(bidPrices, i, record.intValue(BIDP1 + i));
+            changed |= set(askQuantities, i, record.longValue(ASKP_RSQN1 + i));
+            changed |= set(bidQuantities, i, record.longValue(BIDP_RSQN1 + i));
+        }
+
+        long value = record.longValue(TOTAL_ASKP_RSQN);
+        if (value != totalAskQuantity) {
+            totalAskQuantity = value;
+            changed = true;
+        }
+        value = record.longValue(TOTAL_BIDP_RSQN);
+        if (value != totalBidQuantity) {
+            totalBidQuantity = value;
+            changed = true;
+        }
+        int price = record.intValue(ANTC_CNPR);
+        if (price != expectedPrice) {
+            expectedPrice = price;
+            changed = true;
+        }
+        value = record.longValue(ANTC_CNQN);
+        if (value != expectedQuantity) {
+            expectedQuantity = value;
+            changed = true;
+        }
+
+        time = record.intValue(BSOP_HOUR);
+        accumulatedVolume = record.longValue(ACML_VOL);
+        return changed;
+    }
+
+    private static boolean set(int[] array, int index, int value) {
+        if (array[index] == value) {
+            return false;
+        }
+        array[index] = value;
+        return true;
+    }
+
+    private static boolean set(long[] array, int index, long value) {
+        if (array[index] == value) {
+            return false;
+        }
+        array[index] = value;
+        return true;
+    }
+
+    public String getStockId() {
+        return stockId;
+    }
+
+    /** 호가 시각 HHMMSS */
+    public int getTime() {
+        return time;
+    }
+
+    /** level 0이 최우선 호가 */
+    public int getAskPrice(int level) {
+        return askPrices[level];
+    }
+
+    public int getBidPrice(int level) {
+        return bidPrices[level];
+    }
+
+    public long getAskQuantity(int level) {
+        return askQuantities[level];
+    }
+
+    public long getBidQuantity(int level) {
+        return bidQuantities[level];
+    }
+
+    public long getTotalAskQuantity() {
+        return totalAskQuantity;
+    }
+
+    public long getTotalBidQuantity() {
+        return totalBidQuantity;
+    }
+
+    public int getExpectedPrice() {
+        return expectedPrice;
+    }
+
+    public long getExpectedQuantity() {
+        return expectedQuantity;
+    }
+
+    public long getAccumulatedVolume() {
+        return accumulatedVolume;
+    }
+
+    /**
+     * 브라우저용 JSON. 종목 데이터에 그대로 병합되도록 orderBook 키 아래에 넣는다.
+     * 예) {"stockId":"005930","orderBook":{"time":"093354","asks":[[71900,100],...],"bids":[[71800,200],...],...}}
+     */
+    public StringBuilder appendJson(StringBuilder sb) {
+        sb.append("{\"stockId\":\"").append(stockId).append("\",\"orderBook\":{\"time\":\"");
+        for (int limit = 100000; limit > 1 && time < limit; limit /= 10) {
+            sb.append('0');
+        }
+        sb.append(time).append("\",\"asks\":");
+        appendLevels(askPrices, askQuantities, sb);
+        sb.append(",\"bids\":");
+        appendLevels(bidPrices, bidQuantities, sb);
+        sb.append(",\"totalAskQuantity\":").append(totalAskQuantity)
+                .append(",\"totalBidQuantity\":").append(totalBidQuantity)
+                .append(",\"expectedPrice\":").append(expectedPrice)
+                .append(",\"expectedQuantity\":").append(expectedQuantity)
+                .append("}}");
+        return sb;
+    }
+
+    public String toJson() {
+        return appendJson(new StringBuilder(512)).toString();
+    }
+
+    private static void appendLevels(int[] prices, long[] quantities, StringBuilder sb) {
+        sb.append('[');
+        for (int i = 0; i < DEPTH; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append('[').append(prices[i]).append(',').append(quantities[i]).append(']');
+        }
+        sb.append(']');
+    }
+
+    @Override
+    public String toString() {
+        return toJson();
+    }
+}
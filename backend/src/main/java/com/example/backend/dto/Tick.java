@@ -0,0 +1,232 @@
+package com.example.backend.dto;
+
+import com.example.backend.websocket.KisFrameParser;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+
+/**
+ * 실시간 체결(H0STCNT0) 한 건. 46개 필드를 모두 primitive로 들고 다니는 불변 객체.
+ *
+ * 종목코드를 제외한 값은 {@link TickField} 순서대로 long[] 하나에 담는다.
+ * 시간/일자는 HHMMSS/YYYYMMDD 정수, 소수 필드는 100배 한 정수, 부호/구분 코드는 패킹된 ASCII로 보관한다.
+ */
+public final class Tick {
+
+    // 브라우저/Redis로 나가는 JSON 필드 (기존 7개 + 추가 정보)
+    private static final TickField[] JSON_FIELDS = {
+            TickField.MKSC_SHRN_ISCD,
+            TickField.STCK_PRPR,
+            TickField.PRDY_VRSS,
+            TickField.PRDY_CTRT,
+            TickField.PRDY_VRSS_SIGN,
+            TickField.CNTG_VOL,
+            TickField.STCK_CNTG_HOUR,
+            TickField.ACML_VOL,
+            TickField.WGHN_AVRG_STCK_PRC,
+            TickField.ASKP1,
+            TickField.BIDP1,
+            TickField.SELN_CNTG_CSNU,
+            TickField.SHNU_CNTG_CSNU
+    };
+
+    // Kafka 컨슈머 스레드마다 파서 하나씩 재사용
+    private static final ThreadLocal<KisFrameParser> RECORD_PARSER =
+            ThreadLocal.withInitial(() -> new KisFrameParser(TickField.COUNT));
+
+    private static final ZoneId KST = ZoneId.of("Asia/Seoul");
+
+    private final String stockId;
+    private final long[] values;
+    // Redis 저장, 중복 체크, 브로드캐스트에서 여러 번 쓰이므로 처음 만든 JSON을 재사용 (String이라 경쟁해도 안전)
+    private String json;
+
+    Tick(String stockId, long[] values) {
+        this.stockId = stockId;
+        this.values = values;
+    }
+
+    /** 파서가 가리키는 현재 레코드로부터 Tick 생성 */
+    public static Tick from(KisFrameParser record) {
+        if (record.fieldsPerRecord() != TickField.COUNT) {
+            throw new IllegalArgumentException("H0STCNT0 record must have " + TickField.COUNT + " fields");
+        }
+        long[] values = new long[TickField.COUNT];
+        for (TickField field : TickField.FIELDS) {
+            int i = field.ordinal();
+            switch (field.kind()) {
+                case TEXT -> { }
+                case DECIMAL -> values[i] = record.fixedValue(i, TickField.DECIMAL_SCALE);
+                case CODE -> values[i] = TickField.packCode(record.field(i));
+                default -> values[i] = record.longValue(i);
+            }
+        }
+        return new Tick(record.text(TickField.MKSC_SHRN_ISCD.ordinal()), values);
+    }
+
+    /** '^'로 구분된 레코드 원문 하나(헤더 없음)를 파싱 */
+    public static Tick parse(String recordText) {
+        return from(RECORD_PARSER.get().parseRecord(recordText));
+    }
+
+    public String getStockId() {
+        return stockId;
+    }
+
+    public long get(TickField field) {
+        return values[field.ordinal()];
+    }
+
+    public int getTradingTime() {
+        return (int) values[TickField.STCK_CNTG_HOUR.ordinal()];
+    }
+
+    /** 영업일자 + 체결시각(KST)의 epoch ms. 영업일자가 없거나 잘못된 값이면 현재 시각 */
+    public long getTradeEpochMillis() {
+        int date = (int) values[TickField.BSOP_DATE.ordinal()];
+        int time = getTradingTime();
+        if (date <= 0) {
+            return System.currentTimeMillis();
+        }
+        try {
+            return LocalDate.of(date / 10000, date / 100 % 100, date % 100)
+                    .atTime(time / 10000, time / 100 % 100, time % 100)
+                    .atZone(KST).toInstant().toEpochMilli();
+        } catch (DateTimeException e) {
+            return System.currentTimeMillis();
+        }
+    }
+
+    public int getCurrentPrice() {
+        return (int) values[TickField.STCK_PRPR.ordinal()];
+    }
+
+    public int getFluctuationPrice() {
+        return (int) values[TickField.PRDY_VRSS.ordinal()];
+    }
+
+    /** 전일 대비율 x100 */
+    public int getFluctuationRate() {
+        return (int) values[TickField.PRDY_CTRT.ordinal()];
+    }
+
+    public char getFluctuationSign() {
+        return (char) values[TickField.PRDY_VRSS_SIGN.ordinal()];
+    }
+
+    public long getTransactionVolume() {
+        return values[TickField.CNTG_VOL.ordinal()];
+    }
+
+    public long getAccumulatedVolume() {
+        return values[TickField.ACML_VOL.ordinal()];
+    }
+
+    /** 가중 평균 주식 가격(VWAP) x100 */
+    public long getWeightedAveragePrice() {
+        return values[TickField.WGHN_AVRG_STCK_PRC.ordinal()];
+    }
+
+    public int getAskPrice() {
+        return (int) values[TickField.ASKP1.ordinal()];
+    }
+
+    public int getBidPrice() {
+        return (int) values[TickField.BIDP1.ordinal()];
+    }
+
+    public int getSellCount() {
+        return (int) values[TickField.SELN_CNTG_CSNU.ordinal()];
+    }
+
+    public int getBuyCount() {
+        return (int) values[TickField.SHNU_CNTG_CSNU.ordinal()];
+    }
+
+    /** 체결 거래량만 바꾼 사본 (conflation으로 여러 체결을 하나로 합칠 때) */
+    public Tick withTransactionVolume(long volume) {
+        long[] copy = values.clone();
+        copy[TickField.CNTG_VOL.ordinal()] = volume;
+        return new Tick(stockId, copy);
+    }
+
+    /** 필드 값을 KIS 원문과 같은 표기로 추가 (시간은 0 패딩, 소수는 둘째 자리까지) */
+    public StringBuilder appendValue(TickField field, StringBuilder sb) {
+        long value = values[field.ordinal()];
+        switch (field.kind()) {
+            case TEXT -> sb.append(stockId);
+            case TIME -> appendPadded(value, 6, sb);
+            case DATE -> appendPadded(value, 8, sb);
+            case DECIMAL -> appendDecimal(value, sb);
+            case CODE -> TickField.appendCode(value, sb);
+            default -> sb.append(value);
+        }
+        return sb;
+    }
+
+    public StringBuilder appendJson(StringBuilder sb) {
+        sb.append('{');
+        for (int i = 0; i < JSON_FIELDS.length; i++) {
+            TickField field = JSON_FIELDS[i];
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append('"').append(field.jsonName()).append("\":\"");
+            appendValue(field, sb).append('"');
+        }
+        return sb.append('}');
+    }
+
+    /** 기존 메시지와 같은 키(stockId, currentPrice, ...)를 가진 JSON */
+    public String toJson() {
+        String result = json;
+        if (result == null) {
+            result = appendJson(new StringBuilder(320)).toString();
+            json = result;
+        }
+        return result;
+    }
+
+    private static void appendPadded(long value, int width, StringBuilder sb) {
+        long limit = 10;
+        for (int i = 1; i < width; i++, limit *= 10) {
+            if (value < limit) {
+                sb.append('0');
+            }
+        }
+        sb.append(value);
+    }
+
+    private static void appendDecimal(long value, StringBuilder sb) {
+        if (value < 0) {
+            sb.append('-');
+            value = -value;
+        }
+        long fraction = value % 100;
+        sb.append(value / 100).append('.');
+        if (fraction < 10) {
+            sb.append('0');
+        }
+        sb.append(fraction);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Tick)) return false;
+        Tick other = (Tick) o;
+        return stockId.equals(other.stockId) && Arrays.equals(values, other.values);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * stockId.hashCode() + Arrays.hashCode(values);
+    }
+
+    @Override
+    public String toString() {
+        return toJson();
+    }
+}
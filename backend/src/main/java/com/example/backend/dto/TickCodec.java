@@ -0,0 +1,75 @@
+package com.example.backend.dto;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Kafka로 주고받는 {@link Tick}의 고정 길이 바이너리 표현.
+ *
+ * <pre>
+ * version(1) | stockId 패킹(8) | TickField 순서대로 필드값 (LONG 8바이트, 그 외 4바이트)
+ * </pre>
+ * 필드 위치가 고정이라 파싱 없이 읽고, JSON은 브라우저/Redis로 나갈 때 한 번만 만든다.
+ * 레이아웃을 바꾸면 VERSION을 올리고 이전 버전 디코딩을 남겨 둘 것.
+ */
+public final class TickCodec {
+
+    public static final byte VERSION = 1;
+    public static final int SIZE;
+
+    static {
+        int size = 1 + Long.BYTES;
+        for (TickField field : TickField.FIELDS) {
+            size += width(field.kind());
+        }
+        SIZE = size;
+    }
+
+    private TickCodec() {
+    }
+
+    public static byte[] encode(Tick tick) {
+        ByteBuffer buffer = ByteBuffer.allocate(SIZE);
+        buffer.put(VERSION);
+        buffer.putLong(TickField.packCode(tick.getStockId()));
+        for (TickField field : TickField.FIELDS) {
+            long value = tick.get(field);
+            switch (width(field.kind())) {
+                case 0 -> { }
+                case Long.BYTES -> buffer.putLong(value);
+                default -> {
+                    if (value != (int) value) {
+                        throw new IllegalArgumentException(field + " out of int range: " + value);
+                    }
+                    buffer.putInt((int) value);
+                }
+            }
+        }
+        return buffer.array();
+    }
+
+    public static Tick decode(byte[] data) {
+        if (data.length != SIZE || data[0] != VERSION) {
+            throw new IllegalArgumentException("Unsupported tick encoding: version " + (data.length > 0 ? data[0] : -1)
+                    + ", " + data.length + " bytes");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(data, 1, SIZE - 1);
+        String stockId = TickField.appendCode(buffer.getLong(), new StringBuilder(8)).toString();
+        long[] values = new long[TickField.COUNT];
+        for (TickField field : TickField.FIELDS) {
+            switch (width(field.kind())) {
+                case 0 -> { }
+                case Long.BYTES -> values[field.ordinal()] = buffer.getLong();
+                default -> values[field.ordinal()] = buffer.getInt();
+            }
+        }
+        return new Tick(stockId, values);
+    }
+
+    private static int width(TickField.Kind kind) {
+        return switch (kind) {
+            case TEXT -> 0;
+            case LONG -> Long.BYTES;
+            default -> Integer.BYTES;
+        };
+    }
+}
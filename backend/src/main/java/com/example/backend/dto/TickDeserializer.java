@@ -0,0 +1,20 @@
+package com.example.backend.dto;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+
+/** {@link TickCodec} 바이너리를 Tick으로 읽는 Kafka value deserializer */
+public class TickDeserializer implements Deserializer<Tick> {
+
+    @Override
+    public Tick deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        try {
+            return TickCodec.decode(data);
+        } catch (IllegalArgumentException e) {
+            throw new SerializationException("Failed to decode tick from " + topic, e);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.backend.dto;
+
+/**
+ * H0STCNT0(국내주식 실시간체결가) 레코드의 46개 필드 위치 테이블.
+ * ordinal()이 곧 레코드 안에서의 필드 위치이며 {@link Tick} 내부 배열의 인덱스로도 쓰인다.
+ */
+public enum TickField {
+    MKSC_SHRN_ISCD(Kind.TEXT, "stockId"),                           // 유가증권 단축 종목코드
+    STCK_CNTG_HOUR(Kind.TIME, "tradingTime"),                       // 주식 체결 시간
+    STCK_PRPR(Kind.INT, "currentPrice"),                            // 주식 현재가
+    PRDY_VRSS_SIGN(Kind.CODE, "fluctuationSign"),                   // 전일 대비 부호
+    PRDY_VRSS(Kind.INT, "fluctuationPrice"),                        // 전일 대비
+    PRDY_CTRT(Kind.DECIMAL, "fluctuationRate"),                     // 전일 대비율
+    WGHN_AVRG_STCK_PRC(Kind.DECIMAL, "weightedAveragePrice"),       // 가중 평균 주식 가격
+    STCK_OPRC(Kind.INT, "openPrice"),                               // 주식 시가
+    STCK_HGPR(Kind.INT, "highPrice"),                               // 주식 최고가
+    STCK_LWPR(Kind.INT, "lowPrice"),                                // 주식 최저가
+    ASKP1(Kind.INT, "askPrice"),                                    // 매도호가1
+    BIDP1(Kind.INT, "bidPrice"),                                    // 매수호가1
+    CNTG_VOL(Kind.LONG, "transactionVolume"),                       // 체결 거래량
+    ACML_VOL(Kind.LONG, "accumulatedVolume"),                       // 누적 거래량
+    ACML_TR_PBMN(Kind.LONG, "accumulatedAmount"),                   // 누적 거래 대금
+    SELN_CNTG_CSNU(Kind.INT, "sellCount"),                          // 매도 체결 건수
+    SHNU_CNTG_CSNU(Kind.INT, "buyCount"),                           // 매수 체결 건수
+    NTBY_CNTG_CSNU(Kind.INT, "netBuyCount"),                        // 순매수 체결 건수
+    CTTR(Kind.DECIMAL, "tradeStrength"),                            // 체결강도
+    SELN_CNTG_SMTN(Kind.LONG, "totalSellVolume"),                   // 총 매도 수량
+    SHNU_CNTG_SMTN(Kind.LONG, "totalBuyVolume"),                    // 총 매수 수량
+    CCLD_DVSN(Kind.CODE, "tradeType"),                              // 체결구분
+    SHNU_RATE(Kind.DECIMAL, "buyRate"),                             // 매수비율
+    PRDY_VOL_VRSS_ACML_VOL_RATE(Kind.DECIMAL, "prevVolumeRate"),    // 전일 거래량 대비 등락율
+    OPRC_HOUR(Kind.TIME, "openTime"),                               // 시가 시간
+    OPRC_VRSS_PRPR_SIGN(Kind.CODE, "openSign"),                     // 시가대비구분
+    OPRC_VRSS_PRPR(Kind.INT, "openDiff"),                           // 시가대비
+    HGPR_HOUR(Kind.TIME, "highTime"),                               // 최고가 시간
+    HGPR_VRSS_PRPR_SIGN(Kind.CODE, "highSign"),                     // 고가대비구분
+    HGPR_VRSS_PRPR(Kind.INT, "highDiff"),                           // 고가대비
+    LWPR_HOUR(Kind.TIME, "lowTime"),                                // 최저가 시간
+    LWPR_VRSS_PRPR_SIGN(Kind.CODE, "lowSign"),                      // 저가대비구분
+    LWPR_VRSS_PRPR(Kind.INT, "lowDiff"),                            // 저가대비
+    BSOP_DATE(Kind.DATE, "businessDate"),                           // 영업 일자
+    NEW_MKOP_CLS_CODE(Kind.CODE, "marketOperationCode"),            // 신 장운영 구분 코드
+    TRHT_YN(Kind.CODE, "tradingHalted"),                            // 거래정지 여부
+    ASKP_RSQN1(Kind.LONG, "askQuantity"),                           // 매도호가 잔량1
+    BIDP_RSQN1(Kind.LONG, "bidQuantity"),                           // 매수호가 잔량1
+    TOTAL_ASKP_RSQN(Kind.LONG, "totalAskQuantity"),                 // 총 매도호가 잔량
+    TOTAL_BIDP_RSQN(Kind.LONG, "totalBidQuantity"),                 // 총 매수호가 잔량
+    VOL_TNRT(Kind.DECIMAL, "volumeTurnover"),                       // 거래량 회전율
+    PRDY_SMNS_HOUR_ACML_VOL(Kind.LONG, "prevSameTimeVolume"),       // 전일 동시간 누적 거래량
+    PRDY_SMNS_HOUR_ACML_VOL_RATE(Kind.DECIMAL, "prevSameTimeVolumeRate"), // 전일 동시간 누적 거래량 비율
+    HOUR_CLS_CODE(Kind.CODE, "hourClassCode"),                      // 시간 구분 코드
+    MRKT_TRTM_CLS_CODE(Kind.CODE, "marketTerminationCode"),         // 임의종료구분코드
+    VI_STND_PRC(Kind.INT, "viStandardPrice");                       // 정적VI발동기준가
+
+    /** 레코드 당 필드 수 */
+    public static final int COUNT = 46;
+
+    /** DECIMAL 필드는 소수점 둘째 자리까지 100배 한 정수로 보관 */
+    public static final int DECIMAL_SCALE = 2;
+
+    // values()는 호출할 때마다 배열을 복사하므로 한 번만 만들어 둔다
+    static final TickField[] FIELDS = values();
+
+    public enum Kind {
+        TEXT,    // 종목코드 (Tick.stockId에 따로 보관)
+        TIME,    // HHMMSS
+        DATE,    // YYYYMMDD
+        INT,
+        LONG,
+        DECIMAL, // 고정소수점 (x100)
+        CODE     // 1~7자 ASCII 코드값을 long 하나에 패킹
+    }
+
+    private final Kind kind;
+    private final String jsonName;
+
+    TickField(Kind kind, String jsonName) {
+        this.kind = kind;
+        this.jsonName = jsonName;
+    }
+
+    public Kind kind() {
+        return kind;
+    }
+
+    public String jsonName() {
+        return jsonName;
+    }
+
+    /** "20", "N" 같은 짧은 코드값을 long으로 패킹. 빈 값은 0 */
+    public static long packCode(CharSequence code) {
+        int length = code.length();
+        if (length > 7) {
+            throw new IllegalArgumentException("code longer than 7 chars: " + code);
+        }
+        long packed = 0;
+        for (int i = 0; i < length; i++) {
+            char c = code.charAt(i);
+            if (c == 0 || c > 0x7F) {
+                throw new IllegalArgumentException("non-ASCII code: " + code);
+            }
+            packed = (packed << 8) | c;
+        }
+        return packed;
+    }
+
+    public static StringBuilder appendCode(long packed, StringBuilder sb) {
+        for (int shift = 48; shift >= 0; shift -= 8) {
+            char c = (char) ((packed >>> shift) & 0xFF);
+            if (c != 0) {
+                sb.append(c);
+            }
+        }
+        return sb;
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.backend.dto;
+
+import org.apache.kafka.common.serialization.Serializer;
+
+/** {@link TickCodec} 바이너리로 직렬화하는 Kafka value serializer */
+public class TickSerializer implements Serializer<Tick> {
+
+    @Override
+    public byte[] serialize(String topic, Tick tick) {
+        return tick == null ? null : TickCodec.encode(tick);
+    }
+}
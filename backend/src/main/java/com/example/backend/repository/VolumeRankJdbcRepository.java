@@ -0,0 +1,64 @@
+package com.example.backend.repository;
+
+import com.example.backend.dto.ResponseOutputDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 거래량 순위 스냅샷(약 30건)을 POPULAR_TB / STOCK_TB에 한 트랜잭션으로 저장한다.
+ *
+ * 행마다 조회 후 수정/저장하지 않고 JDBC batch로 보낸다. MySQL에서는 JDBC URL에
+ * rewriteBatchedStatements=true를 주면 batch가 실제로 한두 번의 왕복으로 합쳐진다.
+ */
+@Repository
+public class VolumeRankJdbcRepository {
+
+    // ranking은 1~30 고정이라 사실상 키. 없는 순위(처음 기동 시)만 INSERT 한다
+    private static final String UPDATE_POPULAR =
+            "UPDATE POPULAR_TB SET stock_id = ?, stock_name = ?, acmlvol = ? WHERE ranking = ?";
+    private static final String INSERT_POPULAR =
+            "INSERT INTO POPULAR_TB (ranking, stock_id, stock_name, acmlvol) VALUES (?, ?, ?, ?)";
+    // stock_id unique 제약에 걸리는 종목은 조용히 건너뛴다
+    private static final String INSERT_IGNORE_STOCK =
+            "INSERT IGNORE INTO STOCK_TB (stock_name, stock_id) VALUES (?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public VolumeRankJdbcRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /** 순위 스냅샷 전체를 저장한다. 하나라도 실패하면 전부 롤백 */
+    @Transactional
+    public void saveSnapshot(List<ResponseOutputDTO> ranking) {
+        if (ranking.isEmpty()) {
+            return;
+        }
+        List<Object[]> popularRows = new ArrayList<>(ranking.size());
+        List<Object[]> stockRows = new ArrayList<>(ranking.size());
+        for (ResponseOutputDTO dto : ranking) {
+            popularRows.add(new Object[]{dto.getMkscShrnIscd(), dto.getHtsKorIsnm(), Integer.valueOf(dto.getAcmlVol()), dto.getDataRank()});
+            stockRows.add(new Object[]{dto.getHtsKorIsnm(), dto.getMkscShrnIscd()});
+        }
+
+        int[] updated = jdbcTemplate.batchUpdate(UPDATE_POPULAR, popularRows);
+        List<Object[]> missing = new ArrayList<>();
+        for (int i = 0; i < updated.length; i++) {
+            // 드라이버가 건수를 모르면 SUCCESS_NO_INFO(-2)를 주므로 0인 경우만 없는 순위로 본다
+            if (updated[i] == 0) {
+                Object[] row = popularRows.get(i);
+                missing.add(new Object[]{row[3], row[0], row[1], row[2]});
+            }
+        }
+        if (!missing.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_POPULAR, missing);
+        }
+        jdbcTemplate.batchUpdate(INSERT_IGNORE_STOCK, stockRows);
+    }
+}
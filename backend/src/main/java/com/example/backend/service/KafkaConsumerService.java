@@ -1,186 +1,373 @@
 package com.example.backend.service;
 
-import com.example.backend.entity.Stock;
-import com.example.backend.repository.StockRepository;
+import com.example.backend.config.KafkaTopicConfig;
+import com.example.backend.repository.VolumeRankJdbcRepository;
+import com.example.backend.websocket.RealtimeFanout;
 import com.example.backend.websocket.StockWebSocketHandler;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.dao.DataIntegrityViolationException;
-import org.springframework.data.redis.core.ListOperations;
-import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.log.LogAccessor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.kafka.annotation.DltHandler;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.RetryableTopic;
+import org.springframework.kafka.retrytopic.TopicSuffixingStrategy;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.kafka.support.serializer.DeserializationException;
+import org.springframework.kafka.support.serializer.SerializationUtils;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.retry.annotation.Backoff;
 import org.springframework.stereotype.Service;
 
-import java.util.Map;
-
-import com.example.backend.dto.PopularDTO;
+import com.example.backend.dto.OrderBook;
 import com.example.backend.dto.ResponseOutputDTO;
-import com.example.backend.entity.Popular;
-import com.example.backend.repository.PopularRepository;
-import jakarta.transaction.Transactional;
+import com.example.backend.dto.Tick;
 
-import java.util.Optional;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Slf4j
 @Service
 public class KafkaConsumerService {
 
-    private final ListOperations<String, String> listOperations;
+    private static final LogAccessor LOG_ACCESSOR = new LogAccessor(KafkaConsumerService.class);
+
     private final ObjectMapper objectMapper;
-    private final RedisTemplate<String, String> redisTemplate;
+    private final TickHistoryStore tickHistoryStore;
     private final StockWebSocketHandler webSocketHandler;
+    private final RealtimeFanout realtimeFanout;
+    private final TickFingerprintCache fingerprintCache;
+    private final RedisCircuitBreaker redisBreaker;
+    private final int stripes;
+    private final Executor tickExecutor;
+    private final KafkaProducerService kafkaProducerService;
+    private final MeterRegistry meterRegistry;
+    private final String realtimeTopic;
+    private final String recoveryTopic;
+    private final String realtimeDeadLetterTopic;
+
+    // 리스너별로 지금 처리 중인 레코드 수 (kafka.consumer.in.flight)
+    private final AtomicInteger realtimeInFlight = new AtomicInteger();
+    private final AtomicInteger recoveryInFlight = new AtomicInteger();
+    private final AtomicInteger volumeRankInFlight = new AtomicInteger();
+    private final AtomicLong latestRankingTimestamp = new AtomicLong();
 
     @Autowired
-    private StockRepository stockRepository;
-    @Autowired
-    private PopularRepository popularRepository; // JPA 또는 JDBC Repository
+    private VolumeRankJdbcRepository volumeRankRepository;
 
     @Autowired
-    public KafkaConsumerService(RedisTemplate<String, String> redisTemplate, StockWebSocketHandler webSocketHandler) {
-        this.listOperations = redisTemplate.opsForList();
+    public KafkaConsumerService(TickHistoryStore tickHistoryStore, StockWebSocketHandler webSocketHandler,
+                                RealtimeFanout realtimeFanout,
+                                TickFingerprintCache fingerprintCache, RedisCircuitBreaker redisBreaker,
+                                KafkaProducerService kafkaProducerService, MeterRegistry meterRegistry,
+                                @Value(KafkaTopicConfig.REALTIME_TOPIC) String realtimeTopic,
+                                @Value(KafkaTopicConfig.REALTIME_RECOVERY_TOPIC) String recoveryTopic,
+                                @Value("${kafka.listener.realtime.stripes:0}") int stripes,
+                                @Value("${kafka.listener.realtime.virtual-threads:false}") boolean virtualThreads) {
         this.objectMapper = new ObjectMapper();
-        this.redisTemplate = redisTemplate;
+        this.tickHistoryStore = tickHistoryStore;
         this.webSocketHandler = webSocketHandler;
+        this.realtimeFanout = realtimeFanout;
+        this.fingerprintCache = fingerprintCache;
+        this.redisBreaker = redisBreaker;
+        // 0 이하면 코어 수만큼
+        this.stripes = stripes > 0 ? stripes : Runtime.getRuntime().availableProcessors();
+        this.tickExecutor = createTickExecutor(this.stripes, virtualThreads);
+        this.kafkaProducerService = kafkaProducerService;
+        this.meterRegistry = meterRegistry;
+        this.realtimeTopic = realtimeTopic;
+        this.recoveryTopic = recoveryTopic;
+        this.realtimeDeadLetterTopic = realtimeTopic + KafkaTopicConfig.DEAD_LETTER_SUFFIX;
+        meterRegistry.gauge("kafka.consumer.in.flight", Tags.of("listener", "realtime"), realtimeInFlight);
+        meterRegistry.gauge("kafka.consumer.in.flight", Tags.of("listener", "realtime-recovery"), recoveryInFlight);
+        meterRegistry.gauge("kafka.consumer.in.flight", Tags.of("listener", "volume-rank"), volumeRankInFlight);
     }
 
-    @KafkaListener(topicPattern = "realtime-data-.*", groupId = "volume-rank-consumer-group")
-    public void consume(String message) {
-        try {
-            // Kafka 메시지 JSON 변환
-            Map<String, String> stockData = objectMapper.readValue(message, new TypeReference<Map<String, String>>() {});
-            log.info("Kafka 메시지 수신: {}", stockData);
-
-            // 데이터 유효성 검사 및 누락값 보완
-            validateAndFillData(stockData);
+    private static Executor createTickExecutor(int stripes, boolean virtualThreads) {
+        if (virtualThreads && Runtime.version().feature() < 21) {
+            // 현재 이미지는 JDK 17이라 가상 스레드를 쓸 수 없다. 켜 두어도 죽지 않고 플랫폼 스레드 풀로 돈다
+            log.warn("[WARN] kafka.listener.realtime.virtual-threads=true 이지만 JDK {} 에서는 가상 스레드를 쓸 수 없어 고정 스레드 풀을 사용합니다",
+                    Runtime.version().feature());
+            virtualThreads = false;
+        }
+        if (virtualThreads) {
+            // 대부분 Redis 응답 대기이므로 가상 스레드로 충분하다 (JDK 21 이상)
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("tick-stripe-");
+            executor.setVirtualThreads(true);
+            return executor;
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        return Executors.newFixedThreadPool(stripes, r -> {
+            Thread thread = new Thread(r, "tick-stripe-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
 
-            String stockId = stockData.get("stockId");
-            String redisKey = "stock:" + stockId;
+    @PreDestroy
+    public void shutdown() {
+        if (tickExecutor instanceof ExecutorService executorService) {
+            executorService.shutdown();
+        }
+    }
 
-            // JSON 리스트 구조로 저장 (LIFO 방식)
-            String jsonData = objectMapper.writeValueAsString(stockData);
+    // 호가는 Redis에 저장하지 않으므로 pod마다 별도 그룹으로 전부 읽어 자기 세션에 바로 보낸다.
+    // 오프셋은 커밋하지 않고 항상 최신부터 읽는다 (재시작마다 그룹이 쌓이지 않도록)
+    @KafkaListener(topics = KafkaTopicConfig.ORDERBOOK_TOPIC,
+            groupId = "${kafka.listener.orderbook.group-id:orderbook-consumer-group}-${HOSTNAME:local}",
+            concurrency = "${kafka.listener.orderbook.concurrency:1}",
+            containerFactory = "orderBookListenerContainerFactory")
+    public void consumeOrderBook(String message) {
+        try {
+            // 호가(H0STASP0) 레코드 원문. 웹소켓 쪽에서 바뀐 호가창만 보내므로 그대로 전달한다
+            OrderBook orderBook = OrderBook.parse(message);
+            webSocketHandler.broadcast(orderBook.getStockId(), orderBook.toJson());
+        } catch (Exception e) {
+            log.error("Kafka 호가 메시지 처리 중 오류: ", e);
+        }
+    }
 
-            // 중복 데이터 확인
-            if (isDuplicateData(redisKey, stockData)) {
-                log.info("중복 데이터 무시: {}", stockData);
-                return;
+    /**
+     * 실시간 체결을 poll 단위로 받아 처리한다.
+     * 종목별로 묶은 뒤 종목코드 기준으로 stripe를 나눠 병렬로 저장/브로드캐스트한다. 한 종목은 항상 한 stripe 안에서
+     * 순서대로 처리되고, 모든 stripe가 끝나야 반환하므로 다음 배치와도 순서가 섞이지 않는다.
+     * 저장에 실패한 stripe의 체결은 복구 토픽으로 넘기고 본 파티션은 멈추지 않고 계속 읽는다.
+     * 복구 토픽/DLT 전송은 브로커 ack까지 기다리고, 실패하면 예외를 던져 오프셋을 커밋하지 않고 배치를 다시 받는다.
+     */
+    @KafkaListener(topics = KafkaTopicConfig.REALTIME_TOPIC, groupId = "${kafka.listener.realtime.group-id:realtime-consumer-group}",
+            concurrency = "${kafka.listener.realtime.concurrency:1}", containerFactory = "tickListenerContainerFactory")
+    public void consume(List<ConsumerRecord<String, Tick>> records) {
+        realtimeInFlight.addAndGet(records.size());
+        try {
+            // Kafka 메시지는 TickDeserializer가 바이너리에서 바로 Tick으로 읽는다 (디코딩 실패한 레코드는 null)
+            Map<String, List<Tick>> ticksByKey = new LinkedHashMap<>();
+            List<CompletableFuture<?>> deadLetters = new ArrayList<>();
+            for (ConsumerRecord<String, Tick> record : records) {
+                Tick tick = record.value();
+                if (tick == null) {
+                    deadLetters.add(sendToDeadLetter(record));
+                } else {
+                    ticksByKey.computeIfAbsent(TickHistoryStore.KEY_PREFIX + tick.getStockId(), k -> new ArrayList<>()).add(tick);
+                }
             }
+            try {
+                processStripes(ticksByKey);
+            } finally {
+                // 저장이 실패해도 이미 보낸 DLT 전송은 기다린다 (실패하면 여기서 예외)
+                CompletableFuture.allOf(deadLetters.toArray(new CompletableFuture[0])).join();
+            }
+        } finally {
+            realtimeInFlight.addAndGet(-records.size());
+        }
+    }
 
-            // Redis에 최신 5개의 데이터 저장
-            listOperations.leftPush(redisKey, jsonData);
-            listOperations.trim(redisKey, 0, 4); // 리스트 크기를 5개로 제한
-
-            log.info("Redis에 최신 5개 데이터 저장 완료: {}", redisKey);
-
-            // TTL 설정 (예: 1시간)
-            redisTemplate.expire(redisKey, 24, java.util.concurrent.TimeUnit.HOURS);
-
-            // WebSocket으로 실시간 데이터 전송
-            webSocketHandler.broadcastMessage(jsonData);
-            log.info("websocket으로 데이터 전송 완료: {}", jsonData);
+    private void processStripes(Map<String, List<Tick>> ticksByKey) {
+        if (ticksByKey.isEmpty()) {
+            return;
+        }
+        if (stripes == 1 || ticksByKey.size() == 1) {
+            processStripe(ticksByKey);
+            return;
+        }
 
-        } catch (Exception e) {
-            log.error("Kafka 메시지 처리 중 오류: ", e);
+        List<Map<String, List<Tick>>> striped = new ArrayList<>(stripes);
+        for (int i = 0; i < stripes; i++) {
+            striped.add(new LinkedHashMap<>());
         }
+        for (Map.Entry<String, List<Tick>> entry : ticksByKey.entrySet()) {
+            striped.get(Math.floorMod(entry.getKey().hashCode(), stripes)).put(entry.getKey(), entry.getValue());
+        }
+        List<CompletableFuture<Void>> futures = new ArrayList<>(stripes);
+        for (Map<String, List<Tick>> stripe : striped) {
+            if (!stripe.isEmpty()) {
+                futures.add(CompletableFuture.runAsync(() -> processStripe(stripe), tickExecutor));
+            }
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
     }
 
     /**
-     * 데이터 유효성 검사 및 누락값 보완
+     * stripe 하나를 처리한다. 실패하면 그 stripe의 체결을 복구 토픽으로 넘긴다.
+     * Redis 차단기가 열려 있으면 Redis를 부르지 않고 바로 넘긴다.
+     * 복구 토픽 전송까지 실패했을 때만 예외를 던진다.
      */
-    private void validateAndFillData(Map<String, String> stockData) {
-        if (!stockData.containsKey("currentPrice")) stockData.put("currentPrice", "0");
-        if (!stockData.containsKey("fluctuationPrice")) stockData.put("fluctuationPrice", "0");
-        if (!stockData.containsKey("fluctuationRate")) stockData.put("fluctuationRate", "0.00");
-        if (!stockData.containsKey("fluctuationSign")) stockData.put("fluctuationSign", "0");
-        if (!stockData.containsKey("transactionVolume")) stockData.put("transactionVolume", "0");
-        if (!stockData.containsKey("tradingTime")) stockData.put("tradingTime", "000000");
+    private void processStripe(Map<String, List<Tick>> ticksByKey) {
+        if (!redisBreaker.allowRequest()) {
+            meterRegistry.counter("kafka.consumer.diverted", "topic", realtimeTopic).increment(sendToRecovery(ticksByKey));
+            return;
+        }
+        try {
+            storeAndBroadcast(ticksByKey);
+            redisBreaker.recordSuccess();
+        } catch (RuntimeException e) {
+            redisBreaker.recordFailure();
+            int count = sendToRecovery(ticksByKey);
+            meterRegistry.counter("kafka.consumer.failures", "topic", realtimeTopic).increment(count);
+            log.warn("[WARN] 체결 {}건 저장 실패, 복구 토픽으로 넘김: {}", count, e.toString());
+        }
+    }
+
+    /** 복구 토픽으로 보내고 브로커 ack까지 기다린다. 하나라도 실패하면 CompletionException */
+    private int sendToRecovery(Map<String, List<Tick>> ticksByKey) {
+        List<CompletableFuture<?>> sends = new ArrayList<>();
+        for (List<Tick> ticks : ticksByKey.values()) {
+            for (Tick tick : ticks) {
+                sends.add(kafkaProducerService.forwardTick(recoveryTopic, tick));
+            }
+        }
+        CompletableFuture.allOf(sends.toArray(new CompletableFuture[0])).join();
+        return sends.size();
     }
 
     /**
-     * 중복 데이터 확인
+     * 본 리스너에서 저장하지 못한 체결을 하나씩 다시 저장한다. 실패하면 -retry-N 토픽에서 간격을 늘려 가며
+     * 재시도하고, 끝내 실패하면 -dlt 토픽에 남긴다.
+     * 그 사이 같은 종목의 더 최신 체결이 이미 브로드캐스트됐을 수 있으므로 Redis 이력에만 넣고 브로드캐스트하지 않는다.
      */
-    private boolean isDuplicateData(String redisKey, Map<String, String> stockData) {
-        String latestData = listOperations.index(redisKey, 0);
-        if (latestData == null) return false;
-
+    @RetryableTopic(attempts = "${kafka.retry.realtime.attempts:4}",
+            backoff = @Backoff(delayExpression = "${kafka.retry.realtime.delay-ms:1000}", multiplier = 2.0),
+            kafkaTemplate = "tickKafkaTemplate", numPartitions = "${kafka.topic.realtime.partitions:12}",
+            topicSuffixingStrategy = TopicSuffixingStrategy.SUFFIX_WITH_INDEX_VALUE)
+    @KafkaListener(topics = KafkaTopicConfig.REALTIME_RECOVERY_TOPIC,
+            groupId = "${kafka.listener.realtime.group-id:realtime-consumer-group}-recovery",
+            containerFactory = "tickRecordListenerContainerFactory")
+    public void consumeRecovery(Tick tick, @Header(KafkaHeaders.RECEIVED_TOPIC) String topic) {
+        meterRegistry.counter("kafka.consumer.retries", "topic", topic).increment();
+        recoveryInFlight.incrementAndGet();
         try {
-            Map<String, String> latestDataMap = objectMapper.readValue(latestData, new TypeReference<Map<String, String>>() {});
-            return stockData.equals(latestDataMap);
-        } catch (Exception e) {
-            log.error("중복 데이터 확인 오류: ", e);
-            return false;
+            tickHistoryStore.append(Map.of(TickHistoryStore.KEY_PREFIX + tick.getStockId(), List.of(tick)));
+        } finally {
+            recoveryInFlight.decrementAndGet();
         }
     }
 
-    public Popular getPopularByRanking(Integer dataRank) {
-        return popularRepository.findByRanking(dataRank)
-                .orElseThrow(() -> new RuntimeException("Popular not found for ranking: " + dataRank));
+    /** 재시도를 모두 소진한 레코드. 원본 그대로 -dlt 토픽에 남아 있으므로 지표와 로그만 남긴다 */
+    @DltHandler
+    public void handleDeadLetter(ConsumerRecord<String, ?> record) {
+        meterRegistry.counter("kafka.consumer.dlt", "topic", record.topic()).increment();
+        log.error("[ERROR] 재시도 후에도 처리하지 못한 메시지: topic={}, key={}, offset={}",
+                record.topic(), record.key(), record.offset());
     }
 
-    @Transactional
-    public void updateStockByRanking(String mkscShrnIscd, Integer dataRank, String stockName, String acmlVol) {
-        int updatedRows = popularRepository.updateStockByRanking(mkscShrnIscd, dataRank, stockName, Integer.valueOf(acmlVol));
-        if (updatedRows == 0) {
-            throw new RuntimeException("Failed to update stockId for ranking: " + dataRank);
-        }
+    /**
+     * 디코딩할 수 없는 체결(poison message)은 재시도해도 소용없으므로 원본 바이트를 바로 {realtime}-dlt로 보낸다.
+     * 예외 헤더나 원본이 없으면(값이 null인 레코드 등) 키만 가진 null 값으로라도 남긴다.
+     */
+    private CompletableFuture<?> sendToDeadLetter(ConsumerRecord<String, Tick> record) {
+        DeserializationException e = SerializationUtils.getExceptionFromHeader(
+                record, SerializationUtils.VALUE_DESERIALIZER_EXCEPTION_HEADER, LOG_ACCESSOR);
+        CompletableFuture<?> sent = kafkaProducerService.forwardRaw(realtimeDeadLetterTopic, record.key(),
+                e == null ? null : e.getData());
+        meterRegistry.counter("kafka.consumer.dlt", "topic", realtimeDeadLetterTopic).increment();
+        log.error("[ERROR] 체결 메시지 디코딩 실패, DLT로 보냄: partition={}, offset={}, cause={}",
+                record.partition(), record.offset(), e == null ? null : e.getMessage());
+        return sent;
     }
 
-    @Transactional
-    public void saveStockByRanking(String mkscShrnIscd, Integer dataRank, String stockName, Integer acmlVol) {
-        Popular popular = new Popular(dataRank, mkscShrnIscd, stockName, acmlVol);
+    /** 종목 키별 체결(오래된 순)을 중복 제거 후 Redis에 저장하고, 실제로 추가된 체결만 브로드캐스트한다 */
+    private void storeAndBroadcast(Map<String, List<Tick>> ticksByKey) {
+        // 종목별 마지막 저장 값과 fingerprint를 비교해 Redis에 보낼 것부터 줄인다
+        Map<String, List<Tick>> candidates = new LinkedHashMap<>();
+        for (Map.Entry<String, List<Tick>> entry : ticksByKey.entrySet()) {
+            long previous = fingerprintCache.get(entry.getKey());
+            List<Tick> fresh = new ArrayList<>();
+            for (Tick tick : entry.getValue()) {
+                long fingerprint = TickFingerprintCache.fingerprint(tick.toJson());
+                if (fingerprint != previous) {
+                    fresh.add(tick);
+                    previous = fingerprint;
+                }
+            }
+            if (!fresh.isEmpty()) {
+                candidates.put(entry.getKey(), fresh);
+            }
+        }
+        if (candidates.isEmpty()) {
+            log.debug("중복 데이터만 수신: 종목 {}개", ticksByKey.size());
+            return;
+        }
+
+        // Redis에 종목별 이력 저장 (TTL 24시간). 최종 중복 판단은 스크립트가 Redis 안에서 원자적으로 한다
+        Map<String, List<Tick>> accepted = tickHistoryStore.append(candidates);
+        log.debug("Redis 저장 완료: 종목 {}개, 추가 {}개 종목", candidates.size(), accepted.size());
+        // 저장이 끝난 뒤에만 갱신한다. 중복으로 걸러졌어도 이력의 최신 값은 마지막 값과 같다
+        for (Map.Entry<String, List<Tick>> entry : candidates.entrySet()) {
+            List<Tick> ticks = entry.getValue();
+            fingerprintCache.put(entry.getKey(), TickFingerprintCache.fingerprint(ticks.get(ticks.size() - 1).toJson()));
+        }
 
-        popularRepository.save(popular);
+        // WebSocket으로 실시간 데이터 전송 (모든 replica의 세션에)
+        realtimeFanout.publish(accepted.values());
     }
 
-    @Transactional
-    public void saveStock(ResponseOutputDTO dto) {
-        Stock stock = new Stock(dto.getHtsKorIsnm(), dto.getMkscShrnIscd());
-        try {
-            stockRepository.save(stock);
-        } catch (DataIntegrityViolationException e) {
-            // 중복인 경우 로그만 남기고 무시
-            log.warn("Duplicate stock entry ignored: {}", stock.getStockId());
+    /**
+     * 거래량 순위 스냅샷(JSON 배열)을 한 번에 받아 POPULAR_TB / STOCK_TB에 batch로 저장한다.
+     * 배포 전 형식(순위 한 건씩의 JSON 객체)도 그대로 받는다.
+     * DB 저장이 실패하면 -retry-N 토픽에서 간격을 늘려 가며 재시도하고, 끝내 실패하거나 파싱할 수 없는 메시지는 -dlt 토픽에 남긴다.
+     * 재시도하는 사이 더 최신 스냅샷이 저장됐으면 덮어쓰지 않고 버린다.
+     */
+    @RetryableTopic(attempts = "${kafka.retry.volume-rank.attempts:4}",
+            backoff = @Backoff(delayExpression = "${kafka.retry.volume-rank.delay-ms:2000}", multiplier = 2.0),
+            kafkaTemplate = "kafkaTemplate", exclude = {JsonProcessingException.class, NumberFormatException.class},
+            traversingCauses = "true",
+            topicSuffixingStrategy = TopicSuffixingStrategy.SUFFIX_WITH_INDEX_VALUE)
+    @KafkaListener(topics = KafkaTopicConfig.VOLUME_RANK_TOPIC, groupId = "${kafka.listener.volume-rank.group-id:volume-rank-consumer-group}",
+            concurrency = "${kafka.listener.volume-rank.concurrency:1}")
+    public void consumeMessage(ConsumerRecord<String, String> record) throws Exception {
+        boolean retry = !KafkaTopicConfig.VOLUME_RANK_TOPIC.equals(record.topic());
+        if (retry) {
+            meterRegistry.counter("kafka.consumer.retries", "topic", record.topic()).increment();
+        }
+        long timestamp = originalTimestamp(record);
+        if (timestamp < latestRankingTimestamp.get()) {
+            log.info("[LOG] 더 최신 거래량 순위가 이미 저장되어 재시도 메시지를 버림: topic={}", record.topic());
+            return;
         }
-    }
 
-    @KafkaListener(topics = "volume-rank-topic", groupId = "volume-rank-consumer-group")
-    @Transactional
-    public void consumeMessage(String message) {
+        volumeRankInFlight.incrementAndGet();
         try {
-            // Deserialize JSON to DTO
-            ResponseOutputDTO dto = objectMapper.readValue(message, ResponseOutputDTO.class);
-            // Save to MySQL
-            Integer dataRank = dto.getDataRank();
-            String mkscShrnIscd = dto.getMkscShrnIscd();
-            String stockName = dto.getHtsKorIsnm();
-            String acmlVol = dto.getAcmlVol();
-
-            //popular repository
-            Optional<Popular> popular = popularRepository.findByRanking(dataRank);
-            //log.info("popular: "+popular);
-            if (popular.isPresent()) {
-                //데이터가 존재하는 경우 업데이트
-                PopularDTO popularDto = new PopularDTO(popular.get());
-
-                if (!popularDto.getStockId().equals(mkscShrnIscd)) {
-                    updateStockByRanking(mkscShrnIscd, dataRank, stockName, acmlVol);
-                }
-            } else {
-                //데이터가 존재하지 않는 경우 저장
-                log.info("[ERROR] Popular not found for ranking: {}", dataRank);
-                saveStockByRanking(mkscShrnIscd, dataRank, stockName, Integer.valueOf(acmlVol));
+            String message = record.value();
+            List<ResponseOutputDTO> ranking = message.trim().startsWith("[")
+                    ? objectMapper.readValue(message, new TypeReference<List<ResponseOutputDTO>>() {})
+                    : List.of(objectMapper.readValue(message, ResponseOutputDTO.class));
+            volumeRankRepository.saveSnapshot(ranking);
+            latestRankingTimestamp.accumulateAndGet(timestamp, Math::max);
+            log.debug("거래량 순위 저장 완료: {}건", ranking.size());
+        } catch (Exception e) {
+            if (!retry) {
+                meterRegistry.counter("kafka.consumer.failures", "topic", record.topic()).increment();
             }
+            log.error("[ERROR] 거래량 순위 저장 실패 (topic={}): {}", record.topic(), e.getMessage());
+            throw e;
+        } finally {
+            volumeRankInFlight.decrementAndGet();
+        }
+    }
 
-            //stock repository
-            Optional<Stock> stock = stockRepository.findByStockId(mkscShrnIscd);
-            if (stock.isEmpty()) {
-                saveStock(dto);
+    // 재시도 토픽으로 옮겨진 메시지는 원래 메시지의 timestamp를 헤더로 갖고 있다 (처음 옮겨질 때 붙은 값이 원본)
+    private static long originalTimestamp(ConsumerRecord<?, ?> record) {
+        for (org.apache.kafka.common.header.Header header : record.headers().headers(KafkaHeaders.ORIGINAL_TIMESTAMP)) {
+            if (header.value() != null && header.value().length == Long.BYTES) {
+                return ByteBuffer.wrap(header.value()).getLong();
             }
-
-            //System.out.println("Saved to MySQL. Time: " + LocalTime.now());
-        } catch (Exception e) {
-            System.err.println("[ERROR] Error processing message: " + e.getMessage());
         }
+        return record.timestamp();
     }
-}
\ No newline at end of file
+}
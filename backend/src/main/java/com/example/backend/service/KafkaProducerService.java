@@ -1,22 +1,153 @@
 package com.example.backend.service;
 
+import com.example.backend.dto.Tick;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Kafka 전송. 완료 콜백에서 전송 지연/실패를 지표로 남긴다.
+ *
+ * 아직 ack를 받지 못한 전송 수를 maxInFlight로 제한한다. 한도에 닿으면 backpressureWaitMs만큼 기다렸다가
+ * 그래도 자리가 없으면 버리고 kafka.producer.send.dropped를 올린다. (브로커 장애 시 웹소켓 리더 스레드를 막지 않기 위함)
+ * 컨슈머가 복구 토픽/DLT로 넘기는 전송은 버리면 안 되므로 forward*로 보내고 완료를 기다린다.
+ */
+@Slf4j
 @Service
 public class KafkaProducerService {
 
     private final KafkaTemplate<String, String> kafkaTemplate;
+    private final KafkaTemplate<String, Tick> tickKafkaTemplate;
+    private final KafkaTemplate<String, byte[]> rawKafkaTemplate;
+
+    private final Semaphore inFlight;
+    private final long backpressureWaitMs;
+
+    private final MeterRegistry meterRegistry;
+    private final Timer sendLatency;
+    private final Counter droppedCounter;
+    private volatile long lastErrorLogNanos;
 
     @Autowired
-    public KafkaProducerService(KafkaTemplate<String, String> kafkaTemplate) {
+    public KafkaProducerService(KafkaTemplate<String, String> kafkaTemplate,
+                                KafkaTemplate<String, Tick> tickKafkaTemplate,
+                                KafkaTemplate<String, byte[]> rawKafkaTemplate,
+                                MeterRegistry meterRegistry,
+                                @Value("${kafka.producer.max-in-flight:100000}") int maxInFlight,
+                                @Value("${kafka.producer.backpressure-wait-ms:0}") long backpressureWaitMs) {
         this.kafkaTemplate = kafkaTemplate;
+        this.tickKafkaTemplate = tickKafkaTemplate;
+        this.rawKafkaTemplate = rawKafkaTemplate;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.backpressureWaitMs = backpressureWaitMs;
+        this.meterRegistry = meterRegistry;
+        this.sendLatency = Timer.builder("kafka.producer.send.latency")
+                .description("send() 호출부터 브로커 ack까지 걸린 시간")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.droppedCounter = meterRegistry.counter("kafka.producer.send.dropped");
+        meterRegistry.gauge("kafka.producer.send.in.flight", inFlight, s -> maxInFlight - s.availablePermits());
     }
 
     public void sendMessage(String topic, String message) {
-        kafkaTemplate.send(topic, message);
+        send(kafkaTemplate, topic, null, message);
         //System.out.println("Sent to Kafka -> Topic: " + topic + ", Message: " + message);
     }
 
-}
\ No newline at end of file
+    // key가 같은 메시지는 같은 파티션으로 가서 순서가 유지된다 (실시간 데이터는 stockId)
+    public void sendMessage(String topic, String key, String message) {
+        send(kafkaTemplate, topic, key, message);
+    }
+
+    // 실시간 체결은 TickCodec 바이너리로 전송 (key: stockId)
+    public void sendTick(String topic, Tick tick) {
+        send(tickKafkaTemplate, topic, tick.getStockId(), tick);
+    }
+
+    /**
+     * 컨슈머가 복구 토픽으로 넘기는 체결. in-flight 한도로 버리지 않고 전송 결과 future를 돌려준다.
+     * 호출한 쪽은 오프셋이 커밋되기 전에 future를 기다리고, 실패하면 예외를 던져 배치를 다시 받아야 한다.
+     */
+    public CompletableFuture<?> forwardTick(String topic, Tick tick) {
+        return forward(tickKafkaTemplate, topic, tick.getStockId(), tick);
+    }
+
+    // 디코딩하지 못한 메시지를 원본 그대로 DLT로 보낼 때. forwardTick과 같이 완료를 기다릴 것
+    public CompletableFuture<?> forwardRaw(String topic, String key, byte[] value) {
+        return forward(rawKafkaTemplate, topic, key, value);
+    }
+
+    private <V> CompletableFuture<?> forward(KafkaTemplate<String, V> template, String topic, String key, V value) {
+        long start = System.nanoTime();
+        try {
+            return template.send(topic, key, value).whenComplete((result, ex) -> {
+                if (ex == null) {
+                    sendLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                } else {
+                    onError(topic, ex);
+                }
+            });
+        } catch (RuntimeException e) {
+            onError(topic, e);
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private <V> void send(KafkaTemplate<String, V> template, String topic, String key, V value) {
+        if (!acquire()) {
+            droppedCounter.increment();
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            template.send(topic, key, value).whenComplete((result, ex) -> {
+                inFlight.release();
+                if (ex == null) {
+                    sendLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                } else {
+                    onError(topic, ex);
+                }
+            });
+        } catch (RuntimeException e) {
+            // 버퍼가 max.block.ms 동안 비지 않는 등 send() 자체가 실패한 경우
+            inFlight.release();
+            onError(topic, e);
+        }
+    }
+
+    private boolean acquire() {
+        if (inFlight.tryAcquire()) {
+            return true;
+        }
+        if (backpressureWaitMs <= 0) {
+            return false;
+        }
+        try {
+            return inFlight.tryAcquire(backpressureWaitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void onError(String topic, Throwable ex) {
+        Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+        meterRegistry.counter("kafka.producer.send.errors",
+                "topic", topic, "exception", cause.getClass().getSimpleName()).increment();
+        // 브로커 장애 시 초당 수천 건이 실패하므로 로그는 1초에 한 번만
+        long now = System.nanoTime();
+        if (now - lastErrorLogNanos > TimeUnit.SECONDS.toNanos(1)) {
+            lastErrorLogNanos = now;
+            log.warn("[WARN] Kafka 전송 실패 (topic={}): {}", topic, cause.toString());
+        }
+    }
+}
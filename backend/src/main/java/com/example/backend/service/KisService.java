@@ -1,5 +1,6 @@
 package com.example.backend.service;
 
+import com.example.backend.config.KafkaTopicConfig;
 import com.example.backend.dto.PopularDTO;
 import com.example.backend.dto.RankingDTO;
 import com.example.backend.entity.DailyStockPrice;
@@ -139,14 +140,13 @@ public class KisService {
         try {
             String accessToken = kisTokenService.getCachedAccessToken();
             getVolumeRank(accessToken).subscribe(response -> {
-              response.forEach(dto -> {
-                  try {
-                      String json = objectMapper.writeValueAsString(dto);
-                      kafkaProducerService.sendMessage("volume-rank-topic", json);
-                  } catch (Exception e) {
-                      System.err.println("Error serializing data: " + e.getMessage());
-                  }
-              });
+              // 순위 전체를 한 메시지로 보내 컨슈머가 한 트랜잭션으로 저장하게 한다
+              try {
+                  String json = objectMapper.writeValueAsString(response);
+                  kafkaProducerService.sendMessage(KafkaTopicConfig.VOLUME_RANK_TOPIC, json);
+              } catch (Exception e) {
+                  System.err.println("Error serializing data: " + e.getMessage());
+              }
           }, error -> {
               System.err.println("Error fetching volume rank: " + error.getMessage());
           });
@@ -0,0 +1,89 @@
+package com.example.backend.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * 실시간 체결 경로의 Redis 차단기.
+ *
+ * 연속 failure-threshold번 실패하면 open-ms 동안 열린다. 열려 있는 동안 체결은 Redis를 부르지 않고 바로 복구 토픽으로 넘어가므로
+ * Redis 장애 중에도 stripe 스레드가 명령 타임아웃을 기다리며 막히지 않는다.
+ * 시간이 지나면 한 번에 한 호출만 통과시켜(half-open) Redis를 확인하고, 성공하면 닫고 실패하면 다시 연다.
+ */
+@Slf4j
+@Component
+public class RedisCircuitBreaker {
+
+    private final int failureThreshold;
+    private final long openNanos;
+    private final LongSupplier clock;
+
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    // half-open에서 확인 중인 호출이 있는지
+    private final AtomicBoolean probing = new AtomicBoolean();
+    private volatile boolean open;
+    private volatile long openedAtNanos;
+
+    @Autowired
+    public RedisCircuitBreaker(MeterRegistry meterRegistry,
+                               @Value("${redis.breaker.failure-threshold:3}") int failureThreshold,
+                               @Value("${redis.breaker.open-ms:5000}") long openMs) {
+        this(failureThreshold, TimeUnit.MILLISECONDS.toNanos(openMs), System::nanoTime);
+        meterRegistry.gauge("redis.breaker.open", this, breaker -> breaker.open ? 1 : 0);
+    }
+
+    RedisCircuitBreaker(int failureThreshold, long openNanos, LongSupplier clock) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openNanos = openNanos;
+        this.clock = clock;
+    }
+
+    /**
+     * Redis를 불러도 되는지. true를 받은 호출은 끝나면 반드시 {@link #recordSuccess()}나 {@link #recordFailure()}를 부를 것
+     * (half-open에서는 그 결과로 닫히거나 다시 열린다)
+     */
+    public boolean allowRequest() {
+        if (!open) {
+            return true;
+        }
+        if (clock.getAsLong() - openedAtNanos < openNanos) {
+            return false;
+        }
+        return probing.compareAndSet(false, true);
+    }
+
+    public boolean isOpen() {
+        return open;
+    }
+
+    public void recordSuccess() {
+        consecutiveFailures.set(0);
+        if (open) {
+            open = false;
+            log.info("[LOG] Redis 차단기 닫힘: 실시간 체결 저장 재개");
+        }
+        probing.set(false);
+    }
+
+    public void recordFailure() {
+        int failures = consecutiveFailures.incrementAndGet();
+        if (open) {
+            // half-open 확인 실패. 다시 open-ms 동안 연다
+            openedAtNanos = clock.getAsLong();
+            probing.set(false);
+        } else if (failures >= failureThreshold) {
+            openedAtNanos = clock.getAsLong();
+            open = true;
+            log.warn("[WARN] Redis {}회 연속 실패, 차단기 열림: {}ms 동안 체결을 복구 토픽으로 바로 넘김",
+                    failures, TimeUnit.NANOSECONDS.toMillis(openNanos));
+        }
+    }
+}
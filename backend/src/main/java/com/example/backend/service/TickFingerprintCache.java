@@ -0,0 +1,67 @@
+package com.example.backend.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 종목별 마지막으로 저장한 체결 JSON의 64비트 fingerprint. 중복 체결을 Redis에 보내기 전에 걸러낸다.
+ *
+ * 최종 중복 판단은 {@link TickHistoryStore}의 스크립트가 하므로 여기 값이 없으면 보내는 양만 늘어날 뿐 결과는 같다.
+ * 파티션이 새로 배정되면 다른 replica가 그 사이 저장했을 수 있으므로 전부 비우고 다음 저장 때 다시 채운다.
+ */
+@Slf4j
+@Component
+public class TickFingerprintCache implements ConsumerRebalanceListener {
+
+    /** 아직 저장한 적 없는 종목 */
+    public static final long NONE = 0L;
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    // 종목 키("stock:005930")마다 holder 하나를 재사용하므로 체결마다 boxing하지 않는다
+    private final Map<String, AtomicLong> fingerprints = new ConcurrentHashMap<>();
+
+    /** 체결 JSON의 FNV-1a 64비트 해시. JSON은 필드 순서와 표기가 고정이므로 같은 체결이면 같은 값 */
+    public static long fingerprint(CharSequence json) {
+        long hash = FNV_OFFSET;
+        for (int i = 0; i < json.length(); i++) {
+            char c = json.charAt(i);
+            hash = (hash ^ (c & 0xFF)) * FNV_PRIME;
+            hash = (hash ^ (c >>> 8)) * FNV_PRIME;
+        }
+        return hash == NONE ? 1 : hash;
+    }
+
+    public long get(String key) {
+        AtomicLong holder = fingerprints.get(key);
+        return holder == null ? NONE : holder.get();
+    }
+
+    /** Redis 저장이 끝난 뒤에만 호출할 것. 저장 실패로 배치가 재전달될 때 중복으로 버려지지 않도록 */
+    public void put(String key, long fingerprint) {
+        AtomicLong holder = fingerprints.get(key);
+        if (holder == null) {
+            fingerprints.put(key, new AtomicLong(fingerprint));
+        } else {
+            holder.set(fingerprint);
+        }
+    }
+
+    @Override
+    public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+    }
+
+    @Override
+    public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+        fingerprints.clear();
+        log.info("[LOG] 파티션 재배정 {}개, 중복 체크 fingerprint 초기화", partitions.size());
+    }
+}
@@ -0,0 +1,346 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.Tick;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 종목별 최신 체결 이력을 Redis에 저장하고 읽는다.
+ *
+ * redis.tick-history.mode 로 저장 방식을 고른다.
+ * - list (기본): stock:{stockId} 리스트에 최신 5개만 유지
+ * - stream: stock-stream:{stockId} 스트림에 MAXLEN ~ 으로 장중 이력을 유지. 엔트리 ID는 체결 시각(ms)이라
+ *   XRANGE/XREVRANGE로 시간 구간을 바로 읽을 수 있다. 스트림 끝보다 오래된 체결(복구 토픽으로 늦게 온 것)은
+ *   stock-late:{stockId} sorted set에 체결 시각으로 넣고, 읽을 때 합친다.
+ *
+ * 어느 쪽이든 저장된 최신 체결보다 새 체결만 최신으로 붙인다(체결 시각, 같은 초면 누적 거래량으로 비교).
+ * 중복 비교, 추가, 길이 제한, EXPIRE를 Lua 스크립트 하나로 실행하므로 여러 컨슈머가 같은 종목을 써도
+ * 사이에 끼어들 수 없다. 스크립트는 기동할 때 SCRIPT LOAD로 올려 두고 SHA로 호출(EVALSHA)하며, 배치의 모든 종목을
+ * 파이프라인 한 번에 보낸다. Redis 재시작이나 Sentinel 장애 조치로 스크립트 캐시가 비면(NOSCRIPT) 다시 올리고 한 번 재시도한다.
+ */
+@Slf4j
+@Component
+public class TickHistoryStore {
+
+    public static final String KEY_PREFIX = "stock:";
+    public static final String STREAM_KEY_PREFIX = "stock-stream:";
+    // list 모드: 마지막으로 저장한 체결의 순서 키 / stream 모드: 마지막 엔트리보다 늦게 들어온 체결
+    public static final String ORDER_KEY_PREFIX = "stock-order:";
+    public static final String LATE_KEY_PREFIX = "stock-late:";
+    public static final int HISTORY_SIZE = 5;
+    public static final long TTL_SECONDS = 24 * 60 * 60;
+    // 남은 TTL이 이보다 짧을 때만 EXPIRE를 다시 건다 (체결마다 TTL을 갱신하지 않도록)
+    private static final long TTL_REFRESH_BELOW_SECONDS = TTL_SECONDS - 60 * 60;
+    private static final String STREAM_FIELD = "d";
+
+    /**
+     * KEYS[1]: 종목 키, KEYS[2]: 마지막 저장 체결의 순서 키("체결시각ms:누적거래량"),
+     * ARGV[1]: 보관 개수, ARGV[2]: TTL(초), ARGV[3]: TTL 갱신 기준(초), ARGV[4..]: 오래된 순 (체결 시각 ms, 누적 거래량, 체결 JSON).
+     * 마지막으로 저장한 체결보다 새 체결(시각이 늦거나, 같은 초면 누적 거래량이 큰 것)만 머리에 넣는다.
+     * 복구 토픽으로 늦게 들어온 체결이나 이미 저장된 체결(중복)은 버린다. 체결마다 추가됐으면 1, 아니면 0.
+     */
+    static final String APPEND_LIST_SCRIPT = """
+            local lastMs, lastVol = -1, -1
+            local order = redis.call('GET', KEYS[2])
+            if order then
+                local sep = string.find(order, ':', 1, true)
+                lastMs = tonumber(string.sub(order, 1, sep - 1))
+                lastVol = tonumber(string.sub(order, sep + 1))
+            end
+            local accepted = {}
+            local pushed = 0
+            for i = 4, #ARGV, 3 do
+                local ms, vol = tonumber(ARGV[i]), tonumber(ARGV[i + 1])
+                if ms > lastMs or (ms == lastMs and vol > lastVol) then
+                    redis.call('LPUSH', KEYS[1], ARGV[i + 2])
+                    lastMs, lastVol = ms, vol
+                    pushed = pushed + 1
+                    accepted[#accepted + 1] = 1
+                else
+                    accepted[#accepted + 1] = 0
+                end
+            end
+            if pushed > 0 then
+                redis.call('LTRIM', KEYS[1], 0, tonumber(ARGV[1]) - 1)
+                redis.call('SET', KEYS[2], string.format('%d:%d', lastMs, lastVol))
+                if redis.call('TTL', KEYS[1]) < tonumber(ARGV[3]) then
+                    redis.call('EXPIRE', KEYS[1], ARGV[2])
+                end
+                if redis.call('TTL', KEYS[2]) < tonumber(ARGV[3]) then
+                    redis.call('EXPIRE', KEYS[2], ARGV[2])
+                end
+            end
+            return accepted
+            """;
+
+    /**
+     * KEYS[1]: 스트림 키, KEYS[2]: 늦게 들어온 체결 sorted set, ARGV[1]: 근사 MAXLEN, ARGV[2]: TTL(초),
+     * ARGV[3]: TTL 갱신 기준(초), ARGV[4..]: 오래된 순 (체결 시각 ms, 누적 거래량, 체결 JSON).
+     * 마지막 엔트리보다 새 체결은 {체결 시각 ms}-{순번} ID로 XADD 한다(같은 초면 순번만 올림). 누적 거래량은 필드 v로 같이 남긴다.
+     * 스트림 ID는 뒤로 갈 수 없으므로, 마지막 엔트리보다 오래된 체결은 최신으로 붙이지 않고 체결 시각을 score로
+     * sorted set에 넣는다 (읽을 때 시각 순으로 합친다). 그 시각에 이미 같은 체결이 있으면 중복으로 버린다.
+     * 체결마다 스트림에 추가됐으면 1, 늦은 체결로 따로 저장했으면 2, 중복이면 0.
+     */
+    static final String APPEND_STREAM_SCRIPT = """
+            local last = redis.call('XREVRANGE', KEYS[1], '+', '-', 'COUNT', 1)[1]
+            local lastMs, lastSeq, lastVol = -1, 0, -1
+            if last then
+                local dash = string.find(last[1], '-', 1, true)
+                lastMs = tonumber(string.sub(last[1], 1, dash - 1))
+                lastSeq = tonumber(string.sub(last[1], dash + 1))
+                for f = 1, #last[2], 2 do
+                    if last[2][f] == 'v' then
+                        lastVol = tonumber(last[2][f + 1])
+                    end
+                end
+            end
+            local accepted = {}
+            local pushed, late = 0, 0
+            for i = 4, #ARGV, 3 do
+                local ms, vol, json = tonumber(ARGV[i]), tonumber(ARGV[i + 1]), ARGV[i + 2]
+                if ms > lastMs or (ms == lastMs and vol > lastVol) then
+                    if ms > lastMs then
+                        lastMs, lastSeq = ms, 0
+                    else
+                        lastSeq = lastSeq + 1
+                    end
+                    redis.call('XADD', KEYS[1], 'MAXLEN', '~', ARGV[1], string.format('%d-%d', lastMs, lastSeq),
+                            'd', json, 'v', ARGV[i + 1])
+                    lastVol = vol
+                    pushed = pushed + 1
+                    accepted[#accepted + 1] = 1
+                else
+                    local duplicate = false
+                    for _, entry in ipairs(redis.call('XRANGE', KEYS[1], ARGV[i], ARGV[i])) do
+                        if entry[2][2] == json then
+                            duplicate = true
+                        end
+                    end
+                    if not duplicate and redis.call('ZADD', KEYS[2], 'NX', ms, json) == 1 then
+                        late = late + 1
+                        accepted[#accepted + 1] = 2
+                    else
+                        accepted[#accepted + 1] = 0
+                    end
+                end
+            end
+            if pushed > 0 and redis.call('TTL', KEYS[1]) < tonumber(ARGV[3]) then
+                redis.call('EXPIRE', KEYS[1], ARGV[2])
+            end
+            if late > 0 then
+                redis.call('ZREMRANGEBYRANK', KEYS[2], 0, -tonumber(ARGV[1]) - 1)
+                if redis.call('TTL', KEYS[2]) < tonumber(ARGV[3]) then
+                    redis.call('EXPIRE', KEYS[2], ARGV[2])
+                end
+            end
+            return accepted
+            """;
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final boolean streamMode;
+    private final byte[] script;
+    private final byte[] sha;
+    private final byte[][] fixedArgs;
+
+    @Autowired
+    public TickHistoryStore(RedisTemplate<String, String> redisTemplate,
+                            @Value("${redis.tick-history.mode:list}") String mode,
+                            @Value("${redis.tick-history.stream.max-len:10000}") long streamMaxLen) {
+        this.redisTemplate = redisTemplate;
+        this.streamMode = "stream".equalsIgnoreCase(mode);
+        String source = streamMode ? APPEND_STREAM_SCRIPT : APPEND_LIST_SCRIPT;
+        this.script = source.getBytes(StandardCharsets.UTF_8);
+        this.sha = RedisScript.of(source).getSha1().getBytes(StandardCharsets.UTF_8);
+        this.fixedArgs = new byte[][]{
+                bytes(Long.toString(streamMode ? streamMaxLen : HISTORY_SIZE)),
+                bytes(Long.toString(TTL_SECONDS)),
+                bytes(Long.toString(TTL_REFRESH_BELOW_SECONDS)),
+        };
+        log.info("[LOG] 체결 이력 저장 방식: {}", streamMode ? "stream (MAXLEN ~" + streamMaxLen + ")" : "list");
+    }
+
+    /**
+     * 배포 직후 첫 배치가 매번 NOSCRIPT로 실패하고 재시도하지 않도록 기동할 때 스크립트를 올려 둔다.
+     * Redis에 아직 붙지 못해도 기동은 계속한다 (첫 저장에서 NOSCRIPT 재시도로 다시 올린다).
+     */
+    @PostConstruct
+    public void loadScript() {
+        try {
+            loadScriptNow();
+            log.info("[LOG] 체결 저장 스크립트 등록 완료: {}", new String(sha, StandardCharsets.UTF_8));
+        } catch (RuntimeException e) {
+            log.warn("[WARN] 체결 저장 스크립트를 미리 등록하지 못했습니다. 첫 저장 때 다시 등록합니다", e);
+        }
+    }
+
+    public boolean isStreamMode() {
+        return streamMode;
+    }
+
+    /**
+     * 종목 키(stock:{stockId})별 체결(오래된 순)을 저장하고, 최신 체결로 추가된 것만 같은 순서로 돌려준다.
+     * 중복이나 이미 저장된 체결보다 오래된 체결(복구 토픽 등)은 돌려주지 않는다.
+     * Redis 오류는 그대로 던진다.
+     */
+    public Map<String, List<Tick>> append(Map<String, List<Tick>> ticksByKey) {
+        List<Object> results;
+        try {
+            results = executeAppend(ticksByKey);
+        } catch (RuntimeException e) {
+            if (!isNoScript(e)) {
+                throw e;
+            }
+            log.warn("[WARN] Redis에 체결 저장 스크립트가 없어 다시 등록합니다");
+            loadScriptNow();
+            results = executeAppend(ticksByKey);
+        }
+
+        Map<String, List<Tick>> accepted = new LinkedHashMap<>();
+        int index = 0;
+        for (Map.Entry<String, List<Tick>> entry : ticksByKey.entrySet()) {
+            List<?> flags = (List<?>) results.get(index++);
+            List<Tick> ticks = entry.getValue();
+            List<Tick> added = new ArrayList<>(ticks.size());
+            for (int i = 0; i < ticks.size(); i++) {
+                if (((Number) flags.get(i)).longValue() == 1) {
+                    added.add(ticks.get(i));
+                }
+            }
+            if (!added.isEmpty()) {
+                accepted.put(entry.getKey(), added);
+            }
+        }
+        return accepted;
+    }
+
+    /** 최신 체결 JSON을 최신 순으로 (list 모드는 보관 중인 5개 전부) */
+    public List<String> latest(String stockId, int count) {
+        if (!streamMode) {
+            return redisTemplate.opsForList().range(KEY_PREFIX + stockId, 0, -1);
+        }
+        return range(stockId, null, null, count, true);
+    }
+
+    /**
+     * 체결 시각 [fromMillis, toMillis] 구간의 체결 JSON (stream 모드 전용). null이면 그쪽 끝은 제한 없음.
+     *
+     * @param newestFirst true면 XREVRANGE로 최신 순, false면 XRANGE로 오래된 순
+     */
+    public List<String> range(String stockId, Long fromMillis, Long toMillis, int count, boolean newestFirst) {
+        if (!streamMode) {
+            throw new IllegalStateException("체결 구간 조회는 redis.tick-history.mode=stream 에서만 지원합니다");
+        }
+        // ms만 준 ID는 XRANGE에서 시작은 ms-0, 끝은 ms-최대 순번으로 해석된다
+        Range<String> window = Range.of(
+                fromMillis == null ? Range.Bound.unbounded() : Range.Bound.inclusive(fromMillis.toString()),
+                toMillis == null ? Range.Bound.unbounded() : Range.Bound.inclusive(toMillis.toString()));
+        String key = STREAM_KEY_PREFIX + stockId;
+        Limit limit = Limit.limit().count(count);
+        List<MapRecord<String, Object, Object>> records = newestFirst
+                ? redisTemplate.opsForStream().reverseRange(key, window, limit)
+                : redisTemplate.opsForStream().range(key, window, limit);
+        // 늦게 들어와 스트림에 붙이지 못한 체결도 같은 구간에서 읽어 체결 시각 순으로 합친다
+        double min = fromMillis == null ? Double.NEGATIVE_INFINITY : fromMillis;
+        double max = toMillis == null ? Double.POSITIVE_INFINITY : toMillis;
+        String lateKey = LATE_KEY_PREFIX + stockId;
+        Set<ZSetOperations.TypedTuple<String>> late = newestFirst
+                ? redisTemplate.opsForZSet().reverseRangeByScoreWithScores(lateKey, min, max, 0, count)
+                : redisTemplate.opsForZSet().rangeByScoreWithScores(lateKey, min, max, 0, count);
+        return merge(records, late, count, newestFirst);
+    }
+
+    /**
+     * 스트림 엔트리와 늦은 체결을 체결 시각 순으로 합쳐 count개까지. 둘 다 이미 같은 방향으로 정렬돼 있다.
+     * 같은 시각이면 늦은 체결이 스트림 엔트리보다 먼저 일어난 것으로 본다.
+     */
+    static List<String> merge(List<MapRecord<String, Object, Object>> records,
+                              Set<ZSetOperations.TypedTuple<String>> late, int count, boolean newestFirst) {
+        List<MapRecord<String, Object, Object>> entries = records == null ? List.of() : records;
+        List<ZSetOperations.TypedTuple<String>> lateEntries = late == null ? List.of() : new ArrayList<>(late);
+        List<String> values = new ArrayList<>(Math.min(count, entries.size() + lateEntries.size()));
+        int i = 0;
+        int j = 0;
+        while (values.size() < count && (i < entries.size() || j < lateEntries.size())) {
+            boolean takeLate;
+            if (i == entries.size()) {
+                takeLate = true;
+            } else if (j == lateEntries.size()) {
+                takeLate = false;
+            } else {
+                long entryMs = entries.get(i).getId().getTimestamp();
+                long lateMs = lateEntries.get(j).getScore().longValue();
+                takeLate = newestFirst ? lateMs > entryMs : lateMs <= entryMs;
+            }
+            if (takeLate) {
+                values.add(lateEntries.get(j++).getValue());
+            } else {
+                values.add((String) entries.get(i++).getValue().get(STREAM_FIELD));
+            }
+        }
+        return values;
+    }
+
+    private void loadScriptNow() {
+        redisTemplate.execute((RedisCallback<String>) connection -> connection.scriptingCommands().scriptLoad(script));
+    }
+
+    private List<Object> executeAppend(Map<String, List<Tick>> ticksByKey) {
+        return redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (Map.Entry<String, List<Tick>> entry : ticksByKey.entrySet()) {
+                evalAppend(connection, entry.getKey(), entry.getValue());
+            }
+            return null;
+        });
+    }
+
+    private void evalAppend(RedisConnection connection, String key, List<Tick> ticks) {
+        byte[][] keysAndArgs = new byte[2 + fixedArgs.length + ticks.size() * 3][];
+        int i = 0;
+        String stockId = key.substring(KEY_PREFIX.length());
+        keysAndArgs[i++] = bytes(streamMode ? STREAM_KEY_PREFIX + stockId : key);
+        keysAndArgs[i++] = bytes((streamMode ? LATE_KEY_PREFIX : ORDER_KEY_PREFIX) + stockId);
+        for (byte[] arg : fixedArgs) {
+            keysAndArgs[i++] = arg;
+        }
+        // 순서 키: 체결 시각(영업일자 포함) 다음 누적 거래량. 같은 초 안의 체결은 누적 거래량이 늘어나는 순서
+        for (Tick tick : ticks) {
+            keysAndArgs[i++] = bytes(Long.toString(tick.getTradeEpochMillis()));
+            keysAndArgs[i++] = bytes(Long.toString(tick.getAccumulatedVolume()));
+            keysAndArgs[i++] = bytes(tick.toJson());
+        }
+        connection.scriptingCommands().evalSha(sha, ReturnType.MULTI, 2, keysAndArgs);
+    }
+
+    private static boolean isNoScript(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t.getMessage() != null && t.getMessage().contains("NOSCRIPT")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static byte[] bytes(String value) {
+        return StringRedisSerializer.UTF_8.serialize(value);
+    }
+}
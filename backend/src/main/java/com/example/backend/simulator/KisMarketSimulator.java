@@ -0,0 +1,340 @@
+package com.example.backend.simulator;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 시뮬레이터 송신 스레드.
+ *
+ * 기본 모드: 세션마다 초당 ticksPerSecond건의 H0STCNT0 체결을 랜덤워크로 만들어 보낸다.
+ * pushAllSymbols=true면 구독과 무관하게 symbolCount개 종목 전체를 대상으로 한다.
+ *
+ * 재생 모드: replayFile이 지정되면 기록된 프레임 파일을 읽어 모든 세션에 그대로 보낸다.
+ * 한 줄에 "수신시각(epoch ms)\t프레임" 또는 프레임만 있으며, replaySpeed는 1, 10 같은 배속 또는 max.
+ */
+@Slf4j
+@Component
+@Profile("kis-simulator")
+public class KisMarketSimulator {
+
+    private static final ZoneId KST = ZoneId.of("Asia/Seoul");
+    private static final DateTimeFormatter HHMMSS = DateTimeFormatter.ofPattern("HHmmss");
+
+    private final KisSimulatorWebSocketHandler handler;
+    private final int symbolCount;
+    private final int ticksPerSecond;
+    private final int recordsPerFrame;
+    private final boolean pushAllSymbols;
+    private final String replayFile;
+    private final String replaySpeed;
+    private final boolean replayLoop;
+
+    private final String[] allSymbols;
+    private final Map<String, SymbolState> states = new ConcurrentHashMap<>();
+    private final Counter framesSent;
+    private final Counter recordsSent;
+
+    private volatile boolean running;
+    private Thread worker;
+
+    public KisMarketSimulator(KisSimulatorWebSocketHandler handler,
+                              MeterRegistry meterRegistry,
+                              @Value("${kis.simulator.symbols:2000}") int symbolCount,
+                              @Value("${kis.simulator.ticks-per-second:1000}") int ticksPerSecond,
+                              @Value("${kis.simulator.records-per-frame:1}") int recordsPerFrame,
+                              @Value("${kis.simulator.push-all-symbols:false}") boolean pushAllSymbols,
+                              @Value("${kis.simulator.replay-file:}") String replayFile,
+                              @Value("${kis.simulator.replay-speed:1}") String replaySpeed,
+                              @Value("${kis.simulator.replay-loop:false}") boolean replayLoop) {
+        this.handler = handler;
+        this.symbolCount = symbolCount;
+        this.ticksPerSecond = ticksPerSecond;
+        this.recordsPerFrame = Math.max(1, recordsPerFrame);
+        this.pushAllSymbols = pushAllSymbols;
+        this.replayFile = replayFile;
+        this.replaySpeed = replaySpeed;
+        this.replayLoop = replayLoop;
+
+        this.allSymbols = new String[symbolCount];
+        for (int i = 0; i < symbolCount; i++) {
+            allSymbols[i] = String.format("%06d", i + 1);
+        }
+        this.framesSent = meterRegistry.counter("kis.simulator.frames.sent");
+        this.recordsSent = meterRegistry.counter("kis.simulator.records.sent");
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        worker = new Thread(replayFile.isBlank() ? this::generateLoop : this::replayLoop, "kis-simulator");
+        worker.setDaemon(true);
+        worker.start();
+        log.info("[LOG] KIS 시뮬레이터 시작: {}", replayFile.isBlank()
+                ? "synthetic " + ticksPerSecond + " ticks/s, " + symbolCount + " symbols"
+                : "replay " + replayFile + " x" + replaySpeed);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    // ===== 합성 체결 =====
+
+    private void generateLoop() {
+        // ticksPerSecond <= 0 이면 최대 속도
+        long frameIntervalNanos = ticksPerSecond > 0 ? TimeUnit.SECONDS.toNanos(1) * recordsPerFrame / ticksPerSecond : 0;
+        StringBuilder sb = new StringBuilder(512 * recordsPerFrame);
+        long next = System.nanoTime();
+
+        while (running) {
+            boolean sent = false;
+            for (KisSimulatorWebSocketHandler.SimulatedSession session : handler.sessions()) {
+                String[] targets = pushAllSymbols ? allSymbols : session.subscriptionSnapshot;
+                if (targets.length == 0) {
+                    continue;
+                }
+                sb.setLength(0);
+                sb.append("0|H0STCNT0|");
+                appendPadded(sb, recordsPerFrame, 3);
+                sb.append('|');
+                for (int i = 0; i < recordsPerFrame; i++) {
+                    if (i > 0) {
+                        sb.append('^');
+                    }
+                    String code = targets[ThreadLocalRandom.current().nextInt(targets.length)];
+                    states.computeIfAbsent(code, SymbolState::new).nextTrade(sb);
+                }
+                session.send(sb.toString());
+                framesSent.increment();
+                recordsSent.increment(recordsPerFrame);
+                sent = true;
+            }
+
+            if (!sent) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(100));
+                next = System.nanoTime();
+            } else if (frameIntervalNanos > 0) {
+                next += frameIntervalNanos;
+                long wait = next - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                } else if (wait < -TimeUnit.SECONDS.toNanos(1)) {
+                    // 1초 이상 밀리면 따라잡으려 몰아서 보내지 않고 기준을 다시 잡는다
+                    next = System.nanoTime();
+                }
+            }
+        }
+    }
+
+    /** 종목별 랜덤워크 상태. 생성 스레드 하나에서만 사용 */
+    private static final class SymbolState {
+        final String code;
+        final int previousClose;
+        final int open;
+        final int tickSize;
+        int price;
+        int high;
+        int low;
+        long accumulatedVolume;
+        long accumulatedAmount;
+        long sellVolume;
+        long buyVolume;
+        int sellCount;
+        int buyCount;
+        String highTime = "090000";
+        String lowTime = "090000";
+
+        SymbolState(String code) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            this.code = code;
+            this.tickSize = random.nextBoolean() ? 100 : 10;
+            this.previousClose = tickSize * random.nextInt(100, 5000);
+            this.open = previousClose + tickSize * random.nextInt(-10, 11);
+            this.price = open;
+            this.high = open;
+            this.low = open;
+        }
+
+        void nextTrade(StringBuilder sb) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            price = Math.max(tickSize, price + tickSize * random.nextInt(-1, 2));
+            long volume = random.nextInt(1, 500);
+            boolean buy = random.nextBoolean();
+            String now = LocalTime.now(KST).format(HHMMSS);
+            if (price > high) {
+                high = price;
+                highTime = now;
+            }
+            if (price < low) {
+                low = price;
+                lowTime = now;
+            }
+            accumulatedVolume += volume;
+            accumulatedAmount += volume * price;
+            if (buy) {
+                buyVolume += volume;
+                buyCount++;
+            } else {
+                sellVolume += volume;
+                sellCount++;
+            }
+            int diff = price - previousClose;
+
+            sb.append(code).append('^');                                              // MKSC_SHRN_ISCD
+            sb.append(now).append('^');                                               // STCK_CNTG_HOUR
+            sb.append(price).append('^');                                             // STCK_PRPR
+            sb.append(sign(diff)).append('^');                                        // PRDY_VRSS_SIGN
+            sb.append(diff).append('^');                                              // PRDY_VRSS
+            appendFixed2(sb, diff * 10000L / previousClose).append('^');              // PRDY_CTRT
+            appendFixed2(sb, accumulatedAmount * 100 / accumulatedVolume).append('^'); // WGHN_AVRG_STCK_PRC
+            sb.append(open).append('^').append(high).append('^').append(low).append('^');
+            sb.append(price + tickSize).append('^').append(price).append('^');        // ASKP1, BIDP1
+            sb.append(volume).append('^');                                            // CNTG_VOL
+            sb.append(accumulatedVolume).append('^');                                 // ACML_VOL
+            sb.append(accumulatedAmount).append('^');                                 // ACML_TR_PBMN
+            sb.append(sellCount).append('^').append(buyCount).append('^');
+            sb.append(buyCount - sellCount).append('^');                              // NTBY_CNTG_CSNU
+            appendFixed2(sb, sellVolume == 0 ? 0 : buyVolume * 10000 / sellVolume).append('^'); // CTTR
+            sb.append(sellVolume).append('^').append(buyVolume).append('^');
+            sb.append(buy ? '1' : '5').append('^');                                   // CCLD_DVSN
+            appendFixed2(sb, buyVolume * 10000 / accumulatedVolume).append('^');      // SHNU_RATE
+            sb.append("100.00^");                                                     // PRDY_VOL_VRSS_ACML_VOL_RATE
+            sb.append("090000^").append(sign(price - open)).append('^').append(price - open).append('^');
+            sb.append(highTime).append('^').append(sign(price - high)).append('^').append(price - high).append('^');
+            sb.append(lowTime).append('^').append(sign(price - low)).append('^').append(price - low).append('^');
+            sb.append(LocalDate.now(KST).format(DateTimeFormatter.BASIC_ISO_DATE)).append('^'); // BSOP_DATE
+            sb.append("20^N^");                                                       // NEW_MKOP_CLS_CODE, TRHT_YN
+            sb.append(random.nextInt(1, 10000)).append('^').append(random.nextInt(1, 10000)).append('^');
+            sb.append(random.nextInt(10000, 1000000)).append('^').append(random.nextInt(10000, 1000000)).append('^');
+            sb.append("0.05^");                                                       // VOL_TNRT
+            sb.append(accumulatedVolume).append("^100.00^");                          // PRDY_SMNS_HOUR_ACML_VOL(_RATE)
+            sb.append("0^^");                                                         // HOUR_CLS_CODE, MRKT_TRTM_CLS_CODE
+            sb.append(previousClose);                                                 // VI_STND_PRC
+        }
+
+        private static char sign(int diff) {
+            return diff > 0 ? '2' : diff < 0 ? '5' : '3';
+        }
+    }
+
+    private static StringBuilder appendFixed2(StringBuilder sb, long scaled) {
+        if (scaled < 0) {
+            sb.append('-');
+            scaled = -scaled;
+        }
+        sb.append(scaled / 100).append('.');
+        appendPadded(sb, scaled % 100, 2);
+        return sb;
+    }
+
+    private static void appendPadded(StringBuilder sb, long value, int width) {
+        String digits = Long.toString(value);
+        for (int i = digits.length(); i < width; i++) {
+            sb.append('0');
+        }
+        sb.append(digits);
+    }
+
+    // ===== 프레임 파일 재생 =====
+
+    private void replayLoop() {
+        double speed = "max".equalsIgnoreCase(replaySpeed) ? 0 : Double.parseDouble(replaySpeed);
+        do {
+            try (BufferedReader reader = Files.newBufferedReader(Path.of(replayFile), StandardCharsets.UTF_8)) {
+                replay(reader, speed);
+            } catch (Exception e) {
+                log.error("[ERROR] 프레임 파일 재생 실패: {}", replayFile, e);
+                return;
+            }
+        } while (running && replayLoop);
+        log.info("[LOG] 프레임 파일 재생 완료: {}", replayFile);
+    }
+
+    private void replay(BufferedReader reader, double speed) throws Exception {
+        long firstRecorded = -1;
+        long startNanos = System.nanoTime();
+        String line;
+        while (running && (line = reader.readLine()) != null) {
+            if (line.isEmpty()) {
+                continue;
+            }
+            String frame = line;
+            int tab = line.indexOf('\t');
+            if (tab > 0) {
+                frame = line.substring(tab + 1);
+                long recorded = Long.parseLong(line.substring(0, tab));
+                if (firstRecorded < 0) {
+                    firstRecorded = recorded;
+                }
+                if (speed > 0) {
+                    long dueNanos = startNanos + (long) (TimeUnit.MILLISECONDS.toNanos(recorded - firstRecorded) / speed);
+                    long wait = dueNanos - System.nanoTime();
+                    if (wait > 0) {
+                        LockSupport.parkNanos(wait);
+                    }
+                }
+            }
+            for (KisSimulatorWebSocketHandler.SimulatedSession session : handler.sessions()) {
+                session.send(frame);
+            }
+            framesSent.increment();
+        }
+    }
+
+    // ===== 거래량 순위 (KisService.fetchVolumeRankPeriodically용) =====
+
+    /** 누적 거래량 상위 종목을 KIS volume-rank 응답의 output 형식으로 반환 (생성 스레드와 경쟁하므로 근사값) */
+    JSONArray volumeRankOutput(int limit) {
+        List<SymbolState> snapshot = new ArrayList<>(states.values());
+        snapshot.sort(Comparator.comparingLong((SymbolState s) -> s.accumulatedVolume).reversed());
+        JSONArray output = new JSONArray();
+        int rank = 1;
+        for (SymbolState state : snapshot.subList(0, Math.min(limit, snapshot.size()))) {
+            int price = state.price;
+            int diff = price - state.previousClose;
+            StringBuilder rate = appendFixed2(new StringBuilder(), diff * 10000L / state.previousClose);
+            output.put(new JSONObject()
+                    .put("hts_kor_isnm", "SIM" + state.code)
+                    .put("mksc_shrn_iscd", state.code)
+                    .put("data_rank", String.valueOf(rank++))
+                    .put("stck_prpr", String.valueOf(price))
+                    .put("prdy_vrss_sign", String.valueOf(SymbolState.sign(diff)))
+                    .put("prdy_vrss", String.valueOf(diff))
+                    .put("prdy_ctrt", rate.toString())
+                    .put("acml_vol", String.valueOf(state.accumulatedVolume))
+                    .put("prdy_vol", String.valueOf(state.accumulatedVolume))
+                    .put("lstn_stcn", "100000000")
+                    .put("avrg_vol", String.valueOf(state.accumulatedVolume)));
+        }
+        return output;
+    }
+}
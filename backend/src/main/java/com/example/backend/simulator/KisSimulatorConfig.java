@@ -0,0 +1,29 @@
+package com.example.backend.simulator;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+/**
+ * 로컬 부하 테스트용 KIS 시뮬레이터 (kis-simulator 프로필에서만 활성화)
+ *
+ * KIS_API_BASE_URL=http://localhost:8080, KIS_WEBSOCKET_URL=ws://localhost:8080/tryitout/H0STCNT0
+ * 으로 지정하면 백엔드 전체가 실제 KIS 대신 이 시뮬레이터에 붙는다.
+ */
+@Configuration
+@Profile("kis-simulator")
+public class KisSimulatorConfig implements WebSocketConfigurer {
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(kisSimulatorWebSocketHandler(), "/tryitout/H0STCNT0")
+                .setAllowedOrigins("*");
+    }
+
+    @Bean
+    public KisSimulatorWebSocketHandler kisSimulatorWebSocketHandler() {
+        return new KisSimulatorWebSocketHandler();
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.backend.simulator;
+
+import org.json.JSONObject;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.UUID;
+
+/**
+ * 시뮬레이터용 KIS REST 엔드포인트.
+ * KisWebSocketService(접속키), KisTokenService(접근토큰), KisService(거래량 순위)가 그대로 호출할 수 있는 형식으로 응답한다.
+ */
+@RestController
+@Profile("kis-simulator")
+public class KisSimulatorController {
+
+    private final KisMarketSimulator simulator;
+
+    public KisSimulatorController(KisMarketSimulator simulator) {
+        this.simulator = simulator;
+    }
+
+    @PostMapping(value = "/oauth2/Approval", produces = MediaType.APPLICATION_JSON_VALUE)
+    public String approval() {
+        return new JSONObject().put("approval_key", "sim-" + UUID.randomUUID()).toString();
+    }
+
+    @PostMapping(value = "/oauth2/tokenP", produces = MediaType.APPLICATION_JSON_VALUE)
+    public String token() {
+        return new JSONObject()
+                .put("access_token", "sim-" + UUID.randomUUID())
+                .put("token_type", "Bearer")
+                .put("expires_in", 86400)
+                .toString();
+    }
+
+    @GetMapping(value = "/uapi/domestic-stock/v1/quotations/volume-rank", produces = MediaType.APPLICATION_JSON_VALUE)
+    public String volumeRank() {
+        return new JSONObject()
+                .put("rt_cd", "0")
+                .put("output", simulator.volumeRankOutput(30))
+                .toString();
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.backend.simulator;
+
+import lombok.extern.slf4j.Slf4j;
+import org.json.JSONObject;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * KIS 실시간 웹소켓(/tryitout/H0STCNT0) 흉내.
+ * 구독(tr_type=1)/해제(tr_type=2) 요청에 KIS와 같은 형식으로 응답하고 세션별 구독 종목을 기록한다.
+ */
+@Slf4j
+public class KisSimulatorWebSocketHandler extends TextWebSocketHandler {
+
+    // 느린 클라이언트 때문에 시뮬레이터 송신 스레드가 막히지 않도록 버퍼를 넘치면 버린다
+    private static final int SEND_TIME_LIMIT_MS = 5000;
+    private static final int BUFFER_SIZE_LIMIT = 4 * 1024 * 1024;
+
+    private final Map<String, SimulatedSession> sessions = new ConcurrentHashMap<>();
+
+    static final class SimulatedSession {
+        final WebSocketSession webSocketSession;
+        final Set<String> subscriptions = ConcurrentHashMap.newKeySet();
+        volatile String[] subscriptionSnapshot = new String[0];
+
+        SimulatedSession(WebSocketSession webSocketSession) {
+            this.webSocketSession = webSocketSession;
+        }
+
+        void send(String frame) {
+            try {
+                webSocketSession.sendMessage(new TextMessage(frame));
+            } catch (Exception e) {
+                log.warn("[WARN] 시뮬레이터 전송 실패 {}: {}", webSocketSession.getId(), e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) {
+        WebSocketSession concurrent = new ConcurrentWebSocketSessionDecorator(session, SEND_TIME_LIMIT_MS,
+                BUFFER_SIZE_LIMIT, ConcurrentWebSocketSessionDecorator.OverflowStrategy.DROP);
+        sessions.put(session.getId(), new SimulatedSession(concurrent));
+        log.info("[LOG] 시뮬레이터 연결: {} (approval_key={})", session.getId(),
+                session.getHandshakeHeaders().getFirst("approval_key"));
+    }
+
+    @Override
+    public void handleTextMessage(WebSocketSession session, TextMessage message) {
+        SimulatedSession simulated = sessions.get(session.getId());
+        if (simulated == null) {
+            return;
+        }
+        try {
+            JSONObject request = new JSONObject(message.getPayload());
+            JSONObject header = request.getJSONObject("header");
+            if ("PINGPONG".equals(header.optString("tr_id"))) {
+                return;
+            }
+            JSONObject input = request.getJSONObject("body").getJSONObject("input");
+            String trId = input.getString("tr_id");
+            String trKey = input.getString("tr_key");
+            boolean register = "1".equals(header.optString("tr_type"));
+
+            // 체결(H0STCNT0)만 생성하고 다른 TR은 응답만 한다
+            if ("H0STCNT0".equals(trId)) {
+                if (register) {
+                    simulated.subscriptions.add(trKey);
+                } else {
+                    simulated.subscriptions.remove(trKey);
+                }
+                simulated.subscriptionSnapshot = simulated.subscriptions.toArray(new String[0]);
+            }
+
+            JSONObject responseHeader = new JSONObject()
+                    .put("tr_id", trId)
+                    .put("tr_key", trKey)
+                    .put("encrypt", "N");
+            JSONObject responseBody = new JSONObject()
+                    .put("rt_cd", "0")
+                    .put("msg_cd", "OPSP0000")
+                    .put("msg1", register ? "SUBSCRIBE SUCCESS" : "UNSUBSCRIBE SUCCESS");
+            simulated.send(new JSONObject().put("header", responseHeader).put("body", responseBody).toString());
+        } catch (Exception e) {
+            log.warn("[WARN] 시뮬레이터 요청 처리 실패: {}", message.getPayload(), e);
+        }
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        sessions.remove(session.getId());
+        log.info("[LOG] 시뮬레이터 연결 종료: {} ({})", session.getId(), status);
+    }
+
+    Collection<SimulatedSession> sessions() {
+        return sessions.values();
+    }
+}
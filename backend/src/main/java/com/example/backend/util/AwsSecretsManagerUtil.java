@@ -17,6 +17,16 @@ public class AwsSecretsManagerUtil {
     private static final Region REGION = Region.AP_NORTHEAST_1;
 
     public static Map<String, String> fetchSecrets() {
+        // 로컬 시뮬레이터 등 다른 KIS 엔드포인트로 접속할 때는 AWS를 거치지 않고 환경변수 값을 사용
+        String baseUrlOverride = System.getenv("KIS_API_BASE_URL");
+        if (baseUrlOverride != null && !baseUrlOverride.isBlank()) {
+            log.info("[LOG] KIS_API_BASE_URL 지정됨, AWS Secrets Manager 대신 환경변수 사용: {}", baseUrlOverride);
+            return Map.of(
+                    "kis.api.baseUrl", baseUrlOverride,
+                    "kis.api.appKey", envOrDefault("KIS_API_APP_KEY", "simulator"),
+                    "kis.api.appSecret", envOrDefault("KIS_API_APP_SECRET", "simulator"));
+        }
+
         try (SecretsManagerClient secretsClient = SecretsManagerClient.builder()
                 .region(REGION)
                 .credentialsProvider(DefaultCredentialsProvider.create())
@@ -37,4 +47,9 @@ public class AwsSecretsManagerUtil {
             throw new RuntimeException("Failed to retrieve secrets from AWS Secrets Manager", e);
         }
     }
+
+    private static String envOrDefault(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value == null || value.isBlank() ? defaultValue : value;
+    }
 }
@@ -0,0 +1,102 @@
+package com.example.backend.websocket;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * /ws/stock?format=compact 세션용 체결 인코딩.
+ *
+ * 키를 짧게 줄이고({"s":"005930","p":"71900",...}), 그 세션에 마지막으로 보낸 값과 달라진 필드만 보낸다.
+ * 종목코드(s)는 항상 포함한다. 브라우저는 이전 값에 병합해서 원래 키의 체결로 복원한다.
+ * 값은 원래 JSON과 같은 문자열 표기를 그대로 쓴다.
+ */
+final class CompactTickCodec {
+
+    // 체결 JSON 키 → 짧은 키 (순서가 값 배열 위치). 프론트엔드 WebSocketProvider의 표와 맞춰야 한다
+    static final String[] FIELDS = {
+            "stockId", "tradingTime", "currentPrice", "fluctuationSign", "fluctuationPrice", "fluctuationRate",
+            "transactionVolume", "accumulatedVolume", "weightedAveragePrice", "askPrice", "bidPrice",
+            "sellCount", "buyCount"
+    };
+    static final String[] SHORT_KEYS = {
+            "s", "t", "p", "g", "c", "r",
+            "v", "a", "w", "ap", "bp",
+            "sc", "bc"
+    };
+
+    private static final Map<String, Integer> INDEX = new HashMap<>();
+
+    static {
+        for (int i = 0; i < FIELDS.length; i++) {
+            INDEX.put(FIELDS[i], i);
+        }
+    }
+
+    private CompactTickCodec() {
+    }
+
+    /**
+     * 체결 JSON({"stockId":"...","currentPrice":"...",...})의 값을 {@link #FIELDS} 순서 배열로.
+     * 문자열 값만 있는 평평한 객체가 아니거나(호가 등) 모르는 키가 있으면 null
+     */
+    static String[] parse(String json) {
+        String[] values = new String[FIELDS.length];
+        int length = json.length();
+        if (length < 2 || json.charAt(0) != '{') {
+            return null;
+        }
+        int pos = 1;
+        while (pos < length) {
+            if (json.charAt(pos) != '"') {
+                return null;
+            }
+            int keyEnd = json.indexOf('"', pos + 1);
+            if (keyEnd < 0 || keyEnd + 2 >= length || json.charAt(keyEnd + 1) != ':' || json.charAt(keyEnd + 2) != '"') {
+                return null;
+            }
+            int valueStart = keyEnd + 3;
+            int valueEnd = json.indexOf('"', valueStart);
+            if (valueEnd < 0 || json.lastIndexOf('\\', valueEnd) >= valueStart) {
+                return null;
+            }
+            Integer index = INDEX.get(json.substring(pos + 1, keyEnd));
+            if (index == null) {
+                return null;
+            }
+            values[index] = json.substring(valueStart, valueEnd);
+            pos = valueEnd + 1;
+            if (pos >= length) {
+                return null;
+            }
+            char next = json.charAt(pos);
+            if (next == '}') {
+                return pos == length - 1 && values[0] != null ? values : null;
+            }
+            if (next != ',') {
+                return null;
+            }
+            pos++;
+        }
+        return null;
+    }
+
+    /**
+     * last(세션에 마지막으로 보낸 값)와 달라진 필드만 담은 짧은 키 JSON. last는 보낸 값으로 갱신한다.
+     * 달라진 필드가 없으면 null
+     */
+    static String encodeDelta(String[] values, String[] last) {
+        StringBuilder sb = null;
+        for (int i = 1; i < FIELDS.length; i++) {
+            String value = values[i];
+            if (value == null || value.equals(last[i])) {
+                continue;
+            }
+            if (sb == null) {
+                sb = new StringBuilder(96).append("{\"s\":\"").append(values[0]).append('"');
+            }
+            sb.append(",\"").append(SHORT_KEYS[i]).append("\":\"").append(value).append('"');
+            last[i] = value;
+        }
+        return sb == null ? null : sb.append('}').toString();
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.backend.websocket;
+
+/**
+ * 세션이 구독하는 실시간 TR 하나. 종목마다 TR별로 등록 요청을 보내고, 수신 프레임은 TR_ID로 골라 handler에 넘긴다.
+ */
+final class KisFeed {
+
+    final String trId;
+    final int fieldsPerRecord;
+    final KisFrameParser.RecordHandler handler;
+
+    KisFeed(String trId, int fieldsPerRecord, KisFrameParser.RecordHandler handler) {
+        this.trId = trId;
+        this.fieldsPerRecord = fieldsPerRecord;
+        this.handler = handler;
+    }
+
+    /** 실시간 데이터 프레임({@code 0|TR_ID|...})의 TR_ID에 해당하는 feed 위치. 제어 메시지나 모르는 TR이면 -1 */
+    static int indexOf(KisFeed[] feeds, String frame) {
+        if (frame.length() < 2 || frame.charAt(1) != '|') {
+            return -1;
+        }
+        for (int i = 0; i < feeds.length; i++) {
+            String trId = feeds[i].trId;
+            int end = 2 + trId.length();
+            if (frame.startsWith(trId, 2) && frame.length() > end && frame.charAt(end) == '|') {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.backend.websocket;
+
+import org.json.JSONObject;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 암호화된 KIS 실시간 프레임({@code 1|TR_ID|데이터건수|base64}) 복호화.
+ *
+ * KIS는 H0STCNI0(체결통보) 같은 TR을 AES-256-CBC로 암호화해 보내고, 키와 IV는 구독 응답의
+ * body.output.key / body.output.iv 로 한 번만 내려준다. TR_ID별로 이를 기억해 두었다가 복호화한다.
+ *
+ * Cipher는 스레드마다 TR_ID별로 한 번만 만들어 init해 둔다. doFinal() 후에는 init 직후 상태로 돌아가므로
+ * 키가 바뀌지 않는 한 메시지마다 getInstance/init을 다시 하지 않는다.
+ */
+final class KisFrameDecryptor {
+
+    private static final String TRANSFORMATION = "AES/CBC/PKCS5Padding";
+
+    private final Map<String, KeyMaterial> keys = new ConcurrentHashMap<>();
+    private final ThreadLocal<Map<String, CachedCipher>> ciphers = ThreadLocal.withInitial(HashMap::new);
+
+    static boolean isEncrypted(CharSequence frame) {
+        return frame.length() > 1 && frame.charAt(0) == '1' && frame.charAt(1) == '|';
+    }
+
+    /**
+     * 구독 응답 JSON에 key/iv가 있으면 해당 TR_ID의 키로 등록한다.
+     *
+     * @return 등록한 TR_ID, 키가 없는 응답이면 null
+     */
+    String registerFromResponse(String json) {
+        if (!json.contains("\"iv\"")) {
+            return null;
+        }
+        JSONObject response = new JSONObject(json);
+        JSONObject header = response.optJSONObject("header");
+        JSONObject body = response.optJSONObject("body");
+        JSONObject output = body == null ? null : body.optJSONObject("output");
+        if (header == null || output == null || !header.has("tr_id") || !output.has("key") || !output.has("iv")) {
+            return null;
+        }
+        String trId = header.getString("tr_id");
+        register(trId, output.getString("key"), output.getString("iv"));
+        return trId;
+    }
+
+    void register(String trId, String key, String iv) {
+        KeyMaterial current = keys.get(trId);
+        if (current != null && current.key.equals(key) && current.iv.equals(iv)) {
+            return; // 재구독 때 같은 키가 오면 스레드별 Cipher를 그대로 쓴다
+        }
+        keys.put(trId, new KeyMaterial(key, iv));
+    }
+
+    /**
+     * 암호화된 프레임을 평문 프레임({@code 0|TR_ID|데이터건수|필드^...})으로 바꾼다.
+     *
+     * @throws IllegalStateException 해당 TR_ID의 키를 아직 받지 못한 경우
+     * @throws IllegalArgumentException 헤더가 잘못됐거나 복호화에 실패한 경우
+     */
+    String decrypt(String frame) {
+        int trIdEnd = frame.indexOf('|', 2);
+        int countEnd = trIdEnd < 0 ? -1 : frame.indexOf('|', trIdEnd + 1);
+        if (countEnd < 0) {
+            throw new IllegalArgumentException("Malformed encrypted KIS frame header");
+        }
+        String trId = frame.substring(2, trIdEnd);
+        KeyMaterial material = keys.get(trId);
+        if (material == null) {
+            throw new IllegalStateException("No AES key received for " + trId);
+        }
+
+        byte[] encrypted = Base64.getDecoder().decode(frame.substring(countEnd + 1));
+        byte[] plain;
+        try {
+            plain = cipherFor(trId, material).doFinal(encrypted);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalArgumentException("Failed to decrypt " + trId + " frame", e);
+        }
+
+        StringBuilder sb = new StringBuilder(countEnd + 1 + plain.length);
+        sb.append('0').append(frame, 1, countEnd + 1);
+        sb.append(new String(plain, StandardCharsets.UTF_8));
+        return sb.toString();
+    }
+
+    private Cipher cipherFor(String trId, KeyMaterial material) throws GeneralSecurityException {
+        Map<String, CachedCipher> threadCiphers = ciphers.get();
+        CachedCipher cached = threadCiphers.get(trId);
+        if (cached == null) {
+            cached = new CachedCipher(Cipher.getInstance(TRANSFORMATION));
+            threadCiphers.put(trId, cached);
+        }
+        if (cached.material != material) {
+            cached.cipher.init(Cipher.DECRYPT_MODE, material.keySpec, material.ivSpec);
+            cached.material = material;
+        }
+        return cached.cipher;
+    }
+
+    private static final class KeyMaterial {
+        final String key;
+        final String iv;
+        final SecretKeySpec keySpec;
+        final IvParameterSpec ivSpec;
+
+        KeyMaterial(String key, String iv) {
+            this.key = key;
+            this.iv = iv;
+            this.keySpec = new SecretKeySpec(key.getBytes(StandardCharsets.UTF_8), "AES");
+            this.ivSpec = new IvParameterSpec(iv.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static final class CachedCipher {
+        final Cipher cipher;
+        KeyMaterial material;
+
+        CachedCipher(Cipher cipher) {
+            this.cipher = cipher;
+        }
+    }
+}
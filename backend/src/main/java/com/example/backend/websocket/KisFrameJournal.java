@@ -0,0 +1,418 @@
+package com.example.backend.websocket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * KIS 웹소켓으로 받은 원문 프레임을 수신 시각과 함께 일자별 세그먼트 파일에 남기는 append-only 저널.
+ *
+ * 세그먼트는 미리 크기를 잡아 메모리 매핑해 두고, 리더 스레드는 위치만 CAS로 예약한 뒤 매핑된 버퍼에 직접 쓴다.
+ * 시스템 콜이나 락 없이 memcpy 수준이라 운영 중 상시 켜 둘 수 있다. 다음 세그먼트 생성과 page pre-touch,
+ * 다 쓴 세그먼트의 force()는 별도 스레드(kis-journal)가 맡는다. 다음 날 첫 세그먼트도 매일 23:50(KST)에 미리 만들어 둔다.
+ * 리더 스레드는 파일을 만들거나 준비를 기다리지 않는다. 교체할 때 준비된 세그먼트가 없으면 kis-journal 스레드에 준비를 맡기고
+ * 그동안 들어온 프레임은 버린다(kis.journal.dropped).
+ *
+ * 파일: {dir}/kis-YYYYMMDD-NNN.journal
+ * 헤더: MAGIC(8바이트)
+ * 레코드(8바이트 정렬, little-endian): 길이(int) | 수신시각 epoch ms(long) | 프레임(UTF-8)
+ * 길이는 프레임을 다 쓴 뒤 마지막에 기록하므로 길이가 0이면 그 뒤로는 읽지 않는다. 읽기는 {@link KisFrameJournalReader}.
+ */
+@Slf4j
+@Component
+public class KisFrameJournal {
+
+    static final long MAGIC = 0x314C4E524A53494BL; // "KISJRNL1"
+    static final int FILE_HEADER_SIZE = 8;
+    static final int RECORD_HEADER_SIZE = 12;
+    static final VarHandle LENGTH = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private static final ZoneId KST = ZoneId.of("Asia/Seoul");
+    private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.BASIC_ISO_DATE;
+    private static final int PAGE_SIZE = 4096;
+    // 이 시각에 다음 날 첫 세그먼트를 준비한다
+    private static final LocalTime NEXT_DAY_PREPARE_TIME = LocalTime.of(23, 50);
+
+    private final boolean enabled;
+    private final Path directory;
+    private final int segmentSize;
+    private final LongSupplier clock;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "kis-journal");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile boolean active;
+    private volatile Segment current;
+    private Segment prepared;     // this 락으로 보호
+    private Segment preparedNextDay; // this 락으로 보호
+    private boolean preparing;    // this 락으로 보호. prepared를 만드는 작업이 kis-journal 스레드에 걸려 있음
+    private LocalDate wantedDay;  // this 락으로 보호. prepared가 있어야 할 날짜 (준비 중에 날짜가 바뀌면 다시 준비)
+    private LocalDate indexDay;   // this 락으로 보호
+    private int nextIndex;        // this 락으로 보호
+
+    private final Counter framesCounter;
+    private final Counter bytesCounter;
+    private final Counter droppedCounter;
+
+    @Autowired
+    public KisFrameJournal(MeterRegistry meterRegistry,
+                           @Value("${kis.journal.enabled:false}") boolean enabled,
+                           @Value("${kis.journal.dir:./journal}") String directory,
+                           @Value("${kis.journal.segment-size-mb:256}") int segmentSizeMb) {
+        // int 위치 예약이 넘치지 않도록 1GB로 제한
+        this(meterRegistry, enabled, Paths.get(directory), Math.min(Math.max(segmentSizeMb, 1), 1024) * 1024 * 1024,
+                System::currentTimeMillis);
+    }
+
+    KisFrameJournal(MeterRegistry meterRegistry, boolean enabled, Path directory, int segmentSize, LongSupplier clock) {
+        this.enabled = enabled;
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.clock = clock;
+        this.framesCounter = meterRegistry.counter("kis.journal.frames");
+        this.bytesCounter = meterRegistry.counter("kis.journal.bytes");
+        this.droppedCounter = meterRegistry.counter("kis.journal.dropped");
+    }
+
+    @PostConstruct
+    public synchronized void start() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Files.createDirectories(directory);
+            long now = clock.getAsLong();
+            current = createSegment(reserve(today(now)));
+            current.pretouch();
+            active = true;
+            requestPrepare(current.day);
+            scheduleNextDayPreparation(now);
+            log.info("[LOG] KIS 프레임 저널 시작: {}", current.path);
+        } catch (IOException e) {
+            log.error("[ERROR] KIS 프레임 저널을 열지 못해 저널링을 끕니다: {}", directory, e);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        active = false;
+        executor.shutdownNow();
+        if (current != null) {
+            current.buffer.force();
+        }
+        if (prepared != null) {
+            deleteQuietly(prepared.path);
+            prepared = null;
+        }
+        if (preparedNextDay != null) {
+            deleteQuietly(preparedNextDay.path);
+            preparedNextDay = null;
+        }
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    /** 그 날짜로 바로 교체할 세그먼트가 준비돼 있는지 */
+    synchronized boolean isPrepared(LocalDate day) {
+        return (prepared != null && prepared.day.equals(day))
+                || (preparedNextDay != null && preparedNextDay.day.equals(day));
+    }
+
+    /**
+     * 프레임 하나를 현재 시각으로 기록한다. 여러 세션의 리더 스레드에서 동시에 호출된다.
+     * 기록에 실패해도 예외를 던지지 않고 kis.journal.dropped만 올린다.
+     */
+    public void append(String frame) {
+        if (!active) {
+            return;
+        }
+        long now = clock.getAsLong();
+        // KIS 실시간 프레임은 ASCII이므로 보통은 byte[]를 만들지 않고 한 글자씩 바로 쓴다
+        byte[] utf8 = null;
+        int byteLength = asciiLength(frame);
+        if (byteLength < 0) {
+            utf8 = frame.getBytes(StandardCharsets.UTF_8);
+            byteLength = utf8.length;
+        }
+        int size = align(RECORD_HEADER_SIZE + byteLength);
+        if (size > segmentSize - FILE_HEADER_SIZE) {
+            droppedCounter.increment();
+            return;
+        }
+
+        Segment segment = current;
+        int pos;
+        while (now >= segment.dayEndMillis || (pos = segment.claim(size)) < 0) {
+            segment = roll(segment, now);
+            if (segment == null) {
+                droppedCounter.increment();
+                return;
+            }
+        }
+
+        MappedByteBuffer buffer = segment.buffer;
+        buffer.putLong(pos + 4, now);
+        int offset = pos + RECORD_HEADER_SIZE;
+        if (utf8 == null) {
+            for (int i = 0; i < byteLength; i++) {
+                buffer.put(offset + i, (byte) frame.charAt(i));
+            }
+        } else {
+            buffer.put(offset, utf8);
+        }
+        LENGTH.setRelease(buffer, pos, byteLength);
+
+        framesCounter.increment();
+        bytesCounter.increment(size);
+    }
+
+    /**
+     * 가득 찼거나 날짜가 바뀐 세그먼트를 미리 준비된 세그먼트로 교체. 다른 스레드가 이미 바꿨으면 그것을 반환.
+     * 리더 스레드에서 불리므로 파일을 만들거나 준비를 기다리지 않는다. 준비된 것이 없으면 준비를 맡기고 null (프레임은 버림)
+     */
+    private synchronized Segment roll(Segment full, long now) {
+        if (!active) {
+            return null;
+        }
+        LocalDate day = today(now);
+        if (current != full && current.day.equals(day)) {
+            return current;
+        }
+
+        Segment next = null;
+        if (prepared != null && prepared.day.equals(day)) {
+            next = prepared;
+            prepared = null;
+        } else if (preparedNextDay != null && preparedNextDay.day.equals(day)) {
+            // 날짜가 바뀐 경우: 전날 밤에 준비해 둔 첫 세그먼트
+            next = preparedNextDay;
+            preparedNextDay = null;
+        }
+        if (next == null) {
+            requestPrepare(day);
+            return null;
+        }
+
+        Segment old = current;
+        current = next;
+        executor.execute(old.buffer::force);
+        requestPrepare(day);
+        log.info("[LOG] 저널 세그먼트 교체: {} -> {}", old.path.getFileName(), next.path.getFileName());
+        return next;
+    }
+
+    /**
+     * kis-journal 스레드에 day의 다음 세그먼트 준비를 맡긴다 (this 락).
+     * 이미 준비됐으면 아무것도 하지 않고, 다른 날짜를 준비하는 중이면 그 작업이 끝난 뒤 다시 준비한다.
+     */
+    private void requestPrepare(LocalDate day) {
+        wantedDay = day;
+        if (prepared != null && !prepared.day.equals(day)) {
+            // 전날 준비한 세그먼트는 쓰지 않는다
+            Segment stale = prepared;
+            prepared = null;
+            executor.execute(() -> deleteQuietly(stale.path));
+        }
+        if (!active || preparing || prepared != null) {
+            return;
+        }
+        preparing = true;
+        executor.execute(() -> prepareNext(day));
+    }
+
+    /** kis-journal 스레드에서 다음 세그먼트를 미리 만들고 페이지를 채워 둔다 */
+    private void prepareNext(LocalDate day) {
+        Path path;
+        synchronized (this) {
+            path = reserve(day);
+        }
+        Segment segment = null;
+        try {
+            segment = createSegment(path);
+            segment.pretouch();
+        } catch (IOException e) {
+            log.error("[ERROR] 다음 저널 세그먼트 준비 실패: {}", path, e);
+        }
+        synchronized (this) {
+            preparing = false;
+            if (segment != null && active && prepared == null && day.equals(wantedDay)) {
+                prepared = segment;
+                segment = null;
+            } else if (active && !day.equals(wantedDay)) {
+                // 준비하는 사이 날짜가 바뀌었다
+                requestPrepare(wantedDay);
+            }
+        }
+        if (segment != null) {
+            deleteQuietly(path);
+        }
+    }
+
+    /** 매일 NEXT_DAY_PREPARE_TIME에 다음 날 첫 세그먼트를 준비. 이미 그 시각이 지났으면 바로 한 번 준비한다 */
+    private void scheduleNextDayPreparation(long now) {
+        long target = today(now).atTime(NEXT_DAY_PREPARE_TIME).atZone(KST).toInstant().toEpochMilli();
+        executor.scheduleAtFixedRate(this::prepareNextDay, Math.max(0, target - now),
+                TimeUnit.DAYS.toMillis(1), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * kis-journal 스레드에서 다음 날 첫 세그먼트(kis-YYYYMMDD-000)를 만들어 둔다.
+     * 자정 이후 첫 프레임이 리더 스레드에서 256MB 파일 생성과 page fault를 겪지 않도록 하기 위함.
+     * 프레임이 없던 날(주말 등)에 준비한 것은 다음 준비 때 지운다.
+     */
+    private void prepareNextDay() {
+        LocalDate day = today(clock.getAsLong()).plusDays(1);
+        Segment stale;
+        synchronized (this) {
+            if (!active || (preparedNextDay != null && preparedNextDay.day.equals(day))) {
+                return;
+            }
+            stale = preparedNextDay;
+            preparedNextDay = null;
+        }
+        if (stale != null) {
+            deleteQuietly(stale.path);
+        }
+        Segment segment;
+        try {
+            segment = createSegment(firstFreePath(day));
+            segment.pretouch();
+        } catch (IOException e) {
+            log.error("[ERROR] 다음 날 저널 세그먼트 준비 실패: {}", day, e);
+            return;
+        }
+        synchronized (this) {
+            if (active && preparedNextDay == null && current.day.isBefore(day)) {
+                preparedNextDay = segment;
+                segment = null;
+            }
+        }
+        if (segment != null) {
+            deleteQuietly(segment.path);
+        }
+    }
+
+    /** 그 날짜의 번호 카운터를 건드리지 않고 0번부터 비어 있는 파일 이름 (다음 날 첫 세그먼트용) */
+    private Path firstFreePath(LocalDate day) {
+        Path path;
+        int index = 0;
+        do {
+            path = directory.resolve(String.format("kis-%s-%03d.journal", day.format(DAY_FORMAT), index++));
+        } while (Files.exists(path));
+        return path;
+    }
+
+    /** 일자별로 아직 쓰지 않은 다음 파일 이름을 예약 (호출자가 this 락을 잡고 있어야 한다) */
+    private Path reserve(LocalDate day) {
+        if (!day.equals(indexDay)) {
+            indexDay = day;
+            nextIndex = 0;
+        }
+        Path path;
+        do {
+            path = directory.resolve(String.format("kis-%s-%03d.journal", day.format(DAY_FORMAT), nextIndex++));
+        } while (Files.exists(path));
+        return path;
+    }
+
+    private Segment createSegment(Path path) throws IOException {
+        LocalDate day = LocalDate.parse(path.getFileName().toString().substring(4, 12), DAY_FORMAT);
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            file.setLength(segmentSize);
+            // 매핑은 채널을 닫아도 유지된다
+            MappedByteBuffer buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putLong(0, MAGIC);
+            long dayEndMillis = day.plusDays(1).atStartOfDay(KST).toInstant().toEpochMilli();
+            return new Segment(path, day, dayEndMillis, buffer, segmentSize);
+        }
+    }
+
+    static int align(int size) {
+        return (size + 7) & ~7;
+    }
+
+    private static int asciiLength(String s) {
+        int length = s.length();
+        for (int i = 0; i < length; i++) {
+            if (s.charAt(i) >= 0x80) {
+                return -1;
+            }
+        }
+        return length;
+    }
+
+    private static LocalDate today(long epochMillis) {
+        return Instant.ofEpochMilli(epochMillis).atZone(KST).toLocalDate();
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("[WARN] 사용하지 않은 저널 세그먼트 삭제 실패: {}", path);
+        }
+    }
+
+    private static final class Segment {
+        final Path path;
+        final LocalDate day;
+        final long dayEndMillis;
+        final MappedByteBuffer buffer;
+        final int capacity;
+        final AtomicInteger position = new AtomicInteger(FILE_HEADER_SIZE);
+
+        Segment(Path path, LocalDate day, long dayEndMillis, MappedByteBuffer buffer, int capacity) {
+            this.path = path;
+            this.day = day;
+            this.dayEndMillis = dayEndMillis;
+            this.buffer = buffer;
+            this.capacity = capacity;
+        }
+
+        /** size만큼 자리를 예약하고 시작 위치를 반환. 남은 공간이 없으면 -1 */
+        int claim(int size) {
+            int pos = position.getAndAdd(size);
+            return pos >= 0 && pos <= capacity - size ? pos : -1;
+        }
+
+        /** 첫 기록 때 page fault가 리더 스레드에서 나지 않도록 미리 디스크 블록을 잡아 둔다 */
+        void pretouch() {
+            for (int i = PAGE_SIZE; i < capacity; i += PAGE_SIZE) {
+                buffer.put(i, (byte) 0);
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.backend.websocket;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * {@link KisFrameJournal} 세그먼트를 앞에서부터 순서대로 읽는 리더.
+ *
+ * <pre>
+ * try (KisFrameJournalReader reader = KisFrameJournalReader.open(path)) {
+ *     while (reader.next()) {
+ *         reader.receivedAtMillis(); reader.frame();
+ *     }
+ * }
+ * </pre>
+ * 기록 중인 세그먼트도 읽을 수 있지만, 여러 스레드가 동시에 쓰는 중이면 아직 다 쓰지 않은 레코드에서 멈춘다.
+ */
+public final class KisFrameJournalReader implements Closeable {
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int limit;
+    private int position = KisFrameJournal.FILE_HEADER_SIZE;
+    private long receivedAtMillis;
+    private String frame;
+
+    private KisFrameJournalReader(FileChannel channel, MappedByteBuffer buffer) {
+        this.channel = channel;
+        this.buffer = buffer;
+        this.limit = buffer.capacity();
+    }
+
+    public static KisFrameJournalReader open(Path segment) throws IOException {
+        FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ);
+        try {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.capacity() < KisFrameJournal.FILE_HEADER_SIZE || buffer.getLong(0) != KisFrameJournal.MAGIC) {
+                throw new IOException("Not a KIS frame journal: " + segment);
+            }
+            return new KisFrameJournalReader(channel, buffer);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /** 다음 레코드로 이동. 더 이상 기록된 레코드가 없으면 false */
+    public boolean next() {
+        if (position > limit - KisFrameJournal.RECORD_HEADER_SIZE) {
+            return false;
+        }
+        int length = (int) KisFrameJournal.LENGTH.getAcquire(buffer, position);
+        if (length <= 0 || length > limit - position - KisFrameJournal.RECORD_HEADER_SIZE) {
+            return false;
+        }
+        receivedAtMillis = buffer.getLong(position + 4);
+        byte[] bytes = new byte[length];
+        buffer.get(position + KisFrameJournal.RECORD_HEADER_SIZE, bytes);
+        frame = new String(bytes, StandardCharsets.UTF_8);
+        position += KisFrameJournal.align(KisFrameJournal.RECORD_HEADER_SIZE + length);
+        return true;
+    }
+
+    public long receivedAtMillis() {
+        return receivedAtMillis;
+    }
+
+    public String frame() {
+        return frame;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
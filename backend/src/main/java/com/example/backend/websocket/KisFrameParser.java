@@ -0,0 +1,337 @@
+package com.example.backend.websocket;
+
+/**
+ * KIS 실시간 데이터 프레임 파서.
+ *
+ * 프레임 형식: {@code 암호화여부|TR_ID|데이터건수|필드^필드^...}
+ * 데이터 부분은 레코드당 {@code fieldsPerRecord}개의 필드가 '^'로 이어져 있고,
+ * 데이터건수가 2 이상이면 여러 레코드가 그대로 연결되어 들어온다.
+ *
+ * split()으로 String[]을 만드는 대신 프레임을 문자 인덱스로 한 번만 훑으면서
+ * 현재 레코드의 필드 시작/끝 위치만 미리 할당된 배열에 기록한다.
+ * 필드 값은 {@link RecordHandler} 콜백 안에서 필요한 것만 primitive로 꺼내 쓴다.
+ *
+ * 내부 상태를 재사용하므로 스레드 안전하지 않다. 웹소켓 세션(리더 스레드)마다 하나씩 사용할 것.
+ */
+public final class KisFrameParser {
+
+    private static final char HEADER_DELIMITER = '|';
+    private static final char FIELD_DELIMITER = '^';
+
+    @FunctionalInterface
+    public interface RecordHandler {
+        /**
+         * 레코드 하나가 파싱될 때마다 호출된다.
+         * 전달된 parser의 필드 접근자는 콜백이 반환되기 전까지만 유효하다.
+         */
+        void onRecord(KisFrameParser record);
+    }
+
+    private final int fieldsPerRecord;
+    private final int[] fieldStart;
+    private final int[] fieldEnd;
+    private final Slice slice = new Slice();
+
+    private CharSequence frame;
+    private boolean encrypted;
+    private int trIdStart;
+    private int trIdEnd;
+    private int recordCount;
+    private int recordIndex;
+
+    public KisFrameParser(int fieldsPerRecord) {
+        if (fieldsPerRecord <= 0) {
+            throw new IllegalArgumentException("fieldsPerRecord must be positive: " + fieldsPerRecord);
+        }
+        this.fieldsPerRecord = fieldsPerRecord;
+        this.fieldStart = new int[fieldsPerRecord];
+        this.fieldEnd = new int[fieldsPerRecord];
+    }
+
+    /**
+     * 프레임을 파싱하고 레코드마다 handler를 호출한다.
+     *
+     * @return 처리한 레코드 수. 실시간 데이터 프레임이 아닌 경우(구독 응답 JSON, PINGPONG 등) -1
+     * @throws IllegalArgumentException 헤더 또는 레코드가 잘려 있는 경우
+     */
+    public int parse(CharSequence frame, RecordHandler handler) {
+        int length = frame.length();
+        // 실시간 데이터는 '0' 또는 '1'(암호화)로 시작, 그 외는 JSON 제어 메시지
+        if (length < 2 || frame.charAt(1) != HEADER_DELIMITER) {
+            return -1;
+        }
+        char flag = frame.charAt(0);
+        if (flag != '0' && flag != '1') {
+            return -1;
+        }
+
+        this.frame = frame;
+        this.encrypted = flag == '1';
+        this.trIdStart = 2;
+        this.trIdEnd = indexOf(frame, HEADER_DELIMITER, trIdStart, length);
+
+        int countStart = trIdEnd + 1;
+        int countEnd = indexOf(frame, HEADER_DELIMITER, countStart, length);
+        long count = parseLong(frame, countStart, countEnd);
+        if (count < 0 || count > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Malformed KIS frame header: record count " + count);
+        }
+        this.recordCount = (int) count;
+        this.recordIndex = 0;
+
+        int pos = countEnd + 1;
+        for (; recordIndex < recordCount; recordIndex++) {
+            pos = scanRecord(pos, length);
+            handler.onRecord(this);
+        }
+        return recordCount;
+    }
+
+    /**
+     * 헤더 없이 '^'로 구분된 레코드 하나만 파싱한다. (Kafka로 전달된 레코드 원문 등)
+     * 반환된 parser의 필드 접근자는 다음 parse 호출 전까지 유효하다.
+     */
+    public KisFrameParser parseRecord(CharSequence recordText) {
+        int length = recordText.length();
+        this.frame = recordText;
+        this.encrypted = false;
+        this.trIdStart = 0;
+        this.trIdEnd = 0;
+        this.recordCount = 1;
+        this.recordIndex = 0;
+        if (scanRecord(0, length) <= length) {
+            throw new IllegalArgumentException("KIS record has more than " + fieldsPerRecord + " fields");
+        }
+        return this;
+    }
+
+    /** 다음 레코드의 필드 위치를 기록하고 그 다음 레코드의 시작 위치를 반환한다. */
+    private int scanRecord(int pos, int length) {
+        int last = fieldsPerRecord - 1;
+        for (int i = 0; i < fieldsPerRecord; i++) {
+            if (pos > length) {
+                throw truncated();
+            }
+            int end = pos;
+            while (end < length && frame.charAt(end) != FIELD_DELIMITER) {
+                end++;
+            }
+            // 마지막 레코드의 마지막 필드가 아니라면 반드시 '^'가 있어야 한다
+            if (end == length && (i < last || recordIndex < recordCount - 1)) {
+                throw truncated();
+            }
+            fieldStart[i] = pos;
+            fieldEnd[i] = end;
+            pos = end + 1;
+        }
+        return pos;
+    }
+
+    private IllegalArgumentException truncated() {
+        return new IllegalArgumentException("Truncated KIS frame: record " + (recordIndex + 1)
+                + "/" + recordCount + " has fewer than " + fieldsPerRecord + " fields");
+    }
+
+    // ===== 헤더 =====
+
+    public boolean isEncrypted() {
+        return encrypted;
+    }
+
+    public boolean isTrId(CharSequence trId) {
+        return regionEquals(trIdStart, trIdEnd, trId);
+    }
+
+    public String trId() {
+        return frame.subSequence(trIdStart, trIdEnd).toString();
+    }
+
+    public int recordCount() {
+        return recordCount;
+    }
+
+    /** 현재 레코드의 프레임 내 순번 (0부터) */
+    public int recordIndex() {
+        return recordIndex;
+    }
+
+    public int fieldsPerRecord() {
+        return fieldsPerRecord;
+    }
+
+    // ===== 현재 레코드 필드 접근자 =====
+
+    /**
+     * 필드를 가리키는 CharSequence 뷰. 인스턴스를 재사용하므로 다음 field() 호출 전까지만 유효하다.
+     */
+    public CharSequence field(int index) {
+        return slice.reset(frame, fieldStart[index], fieldEnd[index]);
+    }
+
+    public String text(int index) {
+        return frame.subSequence(fieldStart[index], fieldEnd[index]).toString();
+    }
+
+    public boolean textEquals(int index, CharSequence expected) {
+        return regionEquals(fieldStart[index], fieldEnd[index], expected);
+    }
+
+    public boolean isEmpty(int index) {
+        return fieldStart[index] == fieldEnd[index];
+    }
+
+    public StringBuilder appendTo(int index, StringBuilder sb) {
+        return sb.append(frame, fieldStart[index], fieldEnd[index]);
+    }
+
+    /** 필드의 첫 글자, 빈 필드면 '\0' */
+    public char charValue(int index) {
+        return isEmpty(index) ? '\0' : frame.charAt(fieldStart[index]);
+    }
+
+    public int intValue(int index) {
+        long value = longValue(index);
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("int overflow: " + text(index));
+        }
+        return (int) value;
+    }
+
+    /** 부호(+/-)가 붙은 정수 필드. 빈 필드는 0 */
+    public long longValue(int index) {
+        return parseLong(frame, fieldStart[index], fieldEnd[index]);
+    }
+
+    /**
+     * 소수 필드를 10^scale 배 한 고정소수점 정수로 읽는다. 예) "-0.14", scale 2 → -14
+     * scale보다 긴 소수 자릿수는 버린다.
+     */
+    public long fixedValue(int index, int scale) {
+        return parseFixed(frame, fieldStart[index], fieldEnd[index], scale);
+    }
+
+    /** 현재 레코드 원문(필드 구분자 포함)을 String으로 복사 */
+    public String recordText() {
+        return frame.subSequence(fieldStart[0], fieldEnd[fieldsPerRecord - 1]).toString();
+    }
+
+    // ===== 파싱 유틸 =====
+
+    private boolean regionEquals(int start, int end, CharSequence expected) {
+        if (end - start != expected.length()) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (frame.charAt(i) != expected.charAt(i - start)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int indexOf(CharSequence s, char c, int from, int length) {
+        for (int i = from; i < length; i++) {
+            if (s.charAt(i) == c) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Malformed KIS frame header: missing '" + c + "'");
+    }
+
+    static long parseLong(CharSequence s, int start, int end) {
+        if (start == end) {
+            return 0L;
+        }
+        boolean negative = false;
+        char first = s.charAt(start);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            start++;
+        }
+        if (start == end) {
+            throw new NumberFormatException("sign without digits: " + s.subSequence(start - 1, end));
+        }
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = s.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("not a number: " + s.subSequence(start, end));
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    static long parseFixed(CharSequence s, int start, int end, int scale) {
+        if (start == end) {
+            return 0L;
+        }
+        boolean negative = false;
+        char first = s.charAt(start);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            start++;
+        }
+        long value = 0;
+        int fractionDigits = -1; // '.'을 만나기 전에는 -1
+        for (int i = start; i < end; i++) {
+            char c = s.charAt(i);
+            if (c == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+                continue;
+            }
+            int digit = c - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("not a decimal: " + s.subSequence(start, end));
+            }
+            if (fractionDigits >= 0) {
+                if (fractionDigits == scale) {
+                    continue;
+                }
+                fractionDigits++;
+            }
+            value = value * 10 + digit;
+        }
+        for (int i = Math.max(fractionDigits, 0); i < scale; i++) {
+            value *= 10;
+        }
+        return negative ? -value : value;
+    }
+
+    /** 프레임의 일부 구간을 복사 없이 가리키는 재사용 뷰 */
+    private static final class Slice implements CharSequence {
+        private CharSequence source;
+        private int start;
+        private int end;
+
+        Slice reset(CharSequence source, int start, int end) {
+            this.source = source;
+            this.start = start;
+            this.end = end;
+            return this;
+        }
+
+        @Override
+        public int length() {
+            return end - start;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= end - start) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            return source.charAt(start + index);
+        }
+
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            return source.subSequence(start + from, start + to);
+        }
+
+        @Override
+        public String toString() {
+            return source.subSequence(start, end).toString();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.backend.websocket;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * kis-journal-replay 프로필로 기동하면 저널 세그먼트를 순서대로 Kafka에 다시 보낸다 ({@link KisWebSocketClient#replayJournal}).
+ *
+ * 장애로 빠진 구간을 다시 채우거나, 기록된 하루를 그대로 흘려 파이프라인을 점검할 때 쓴다.
+ *   SPRING_PROFILES_ACTIVE=kis-journal-replay
+ *   kis.journal.replay.files=./journal/kis-20261019-000.journal,./journal/kis-20261019-001.journal
+ * 실시간 KIS 연결과 같은 토픽으로 보내므로 장중 운영 pod에서는 켜지 말 것.
+ */
+@Slf4j
+@Component
+@Profile("kis-journal-replay")
+public class KisJournalReplayRunner implements ApplicationRunner {
+
+    private final KisWebSocketClient kisWebSocketClient;
+    private final String[] files;
+
+    public KisJournalReplayRunner(KisWebSocketClient kisWebSocketClient,
+                                  @Value("${kis.journal.replay.files:}") String[] files) {
+        this.kisWebSocketClient = kisWebSocketClient;
+        this.files = files;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (files.length == 0) {
+            log.warn("[WARN] kis.journal.replay.files 가 비어 있어 저널 재전송을 하지 않습니다");
+            return;
+        }
+        long total = 0;
+        for (String file : files) {
+            Path segment = Paths.get(file.trim());
+            try {
+                total += kisWebSocketClient.replayJournal(segment);
+            } catch (IOException e) {
+                log.error("[ERROR] 저널 세그먼트를 읽지 못했습니다: {}", segment, e);
+            }
+        }
+        log.info("[LOG] 저널 재전송 종료: 세그먼트 {}개, 체결 {}건", files.length, total);
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.backend.websocket;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.function.BiConsumer;
+
+/**
+ * 종목 코드를 세션 풀에 배정한다. 호출하는 쪽(KisWebSocketClient)의 락 안에서만 쓴다.
+ *
+ * 정렬된 순서로 코드마다 rendezvous hash 점수가 가장 높은 세션부터 시도해 여유가 있는 곳에 배정한다.
+ * 같은 코드 집합이면 항상 같은 결과가 나오고, 코드가 추가/삭제돼도 대부분의 코드는 세션을 옮기지 않는다
+ * (세션이 한도까지 차 있으면 앞 순서 코드에 자리를 내준 코드가 다른 세션으로 옮겨갈 수 있다).
+ */
+final class KisSessionAssigner<S> {
+
+    private final List<S> sessions;
+    private final int codesPerSession;
+    private Map<String, S> assignments = new HashMap<>();
+
+    KisSessionAssigner(List<S> sessions, int codesPerSession) {
+        this.sessions = sessions;
+        this.codesPerSession = codesPerSession;
+    }
+
+    Set<String> codes() {
+        return assignments.keySet();
+    }
+
+    boolean isAssigned(String code) {
+        return assignments.containsKey(code);
+    }
+
+    S sessionOf(String code) {
+        return assignments.get(code);
+    }
+
+    /**
+     * 코드 집합을 다시 배정하고, 배정이 바뀐 코드만 해제/등록한다.
+     * 빠지거나 다른 세션으로 옮겨가는 코드를 모두 먼저 해제해서 세션 한도를 비운 다음 등록한다.
+     *
+     * @return 세션 한도 초과로 배정하지 못한 코드 수
+     */
+    int rebalance(SortedSet<String> codes, BiConsumer<S, String> unsubscribe, BiConsumer<S, String> subscribe) {
+        Map<String, S> target = assign(codes);
+        for (Map.Entry<String, S> entry : assignments.entrySet()) {
+            if (target.get(entry.getKey()) != entry.getValue()) {
+                unsubscribe.accept(entry.getValue(), entry.getKey());
+            }
+        }
+        for (Map.Entry<String, S> entry : target.entrySet()) {
+            if (assignments.get(entry.getKey()) != entry.getValue()) {
+                subscribe.accept(entry.getValue(), entry.getKey());
+            }
+        }
+        assignments = target;
+        return codes.size() - target.size();
+    }
+
+    private Map<String, S> assign(SortedSet<String> codes) {
+        Map<String, S> target = new HashMap<>();
+        int[] load = new int[sessions.size()];
+        for (String code : codes) {
+            int best = -1;
+            long bestScore = Long.MIN_VALUE;
+            for (int i = 0; i < load.length; i++) {
+                long score = sessionScore(code, i);
+                if (load[i] < codesPerSession && (best < 0 || score > bestScore)) {
+                    best = i;
+                    bestScore = score;
+                }
+            }
+            if (best >= 0) {
+                load[best]++;
+                target.put(code, sessions.get(best));
+            }
+        }
+        return target;
+    }
+
+    static long sessionScore(String code, int sessionIndex) {
+        // String.hashCode()는 JVM과 무관하게 고정이므로 재시작해도 배정이 같다
+        long h = code.hashCode() * 0x9E3779B97F4A7C15L + sessionIndex;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -1,163 +1,200 @@
 package com.example.backend.websocket;
 
+import com.example.backend.config.KafkaTopicConfig;
+import com.example.backend.dto.OrderBook;
+import com.example.backend.dto.Tick;
+import com.example.backend.dto.TickField;
 import com.example.backend.service.KafkaProducerService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import okhttp3.OkHttpClient;
-import okhttp3.Request;
-import okhttp3.WebSocket;
-import okhttp3.WebSocketListener;
-import okhttp3.Response;
-import okhttp3.RequestBody;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Arrays;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.json.JSONObject;
 
 @Slf4j
 @Service
 public class KisWebSocketClient {
-    private final String WS_URL = "ws://ops.koreainvestment.com:21000/tryitout/H0STCNT0";
-
-    private WebSocket webSocket;
-    private String approvalKey;
 
     private final KafkaProducerService kafkaProducerService;
+    private final TickConflator tickConflator;
+    private final String orderBookTopic;
+
+    // 재연결 스케줄링용
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "kis-websocket-supervisor");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // 접속키 발급용. 발급 HTTP 호출(타임아웃 10초)이 supervisor 스레드를 막지 않도록 분리
+    private final ExecutorService approvalExecutor;
+    // 세션 풀. 종목 코드는 assigner가 정한 한 세션에만 등록된다
+    private final KisWebSocketSession[] sessions;
+    private final int maxSubscriptionsPerSession;
+    private final boolean orderBookEnabled;
+    // 세션당 종목 수. KIS 등록 한도는 TR x 종목 단위라 호가까지 받으면 절반이 된다
+    private final int codesPerSession;
+    private final KisSessionAssigner<KisWebSocketSession> assigner; // this 락으로 보호
+    private volatile int unassignedCount;
 
     // kafka producer 추가
     @Autowired
-    public KisWebSocketClient(KafkaProducerService kafkaProducerService) {
+    public KisWebSocketClient(KafkaProducerService kafkaProducerService,
+                              TickConflator tickConflator,
+                              KisWebSocketService kisWebSocketService,
+                              KisFrameJournal journal,
+                              MeterRegistry meterRegistry,
+                              @Value("${kis.websocket.url:ws://ops.koreainvestment.com:21000/tryitout/H0STCNT0}") String wsUrl,
+                              @Value("${kis.websocket.reconnect.initial-delay-ms:1000}") long initialDelayMs,
+                              @Value("${kis.websocket.reconnect.max-delay-ms:60000}") long maxDelayMs,
+                              @Value("${kis.websocket.sessions:1}") int sessionCount,
+                              @Value("${kis.websocket.max-subscriptions-per-session:40}") int maxSubscriptionsPerSession,
+                              @Value("${kis.websocket.control-interval-ms:50}") long controlIntervalMs,
+                              @Value("${kis.websocket.orderbook.enabled:true}") boolean orderBookEnabled,
+                              @Value(KafkaTopicConfig.ORDERBOOK_TOPIC) String orderBookTopic) {
         this.kafkaProducerService = kafkaProducerService;
+        this.tickConflator = tickConflator;
+        this.orderBookTopic = orderBookTopic;
+        this.maxSubscriptionsPerSession = maxSubscriptionsPerSession;
+        this.orderBookEnabled = orderBookEnabled;
+        this.codesPerSession = Math.max(1, maxSubscriptionsPerSession / (orderBookEnabled ? 2 : 1));
+
+        // 모든 세션은 OkHttp 커넥션 풀/디스패처를 공유하고, 수신 데이터는 publishTrade 하나로 모인다
+        OkHttpClient httpClient = new OkHttpClient();
+        this.sessions = new KisWebSocketSession[Math.max(1, sessionCount)];
+        AtomicInteger approvalThreads = new AtomicInteger();
+        this.approvalExecutor = Executors.newFixedThreadPool(Math.min(sessions.length, 4), r -> {
+            Thread thread = new Thread(r, "kis-approval-" + approvalThreads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < sessions.length; i++) {
+            sessions[i] = new KisWebSocketSession(i, wsUrl, httpClient, kisWebSocketService, scheduler, approvalExecutor,
+                    createFeeds(), journal, initialDelayMs, maxDelayMs, controlIntervalMs, meterRegistry);
+        }
+        this.assigner = new KisSessionAssigner<>(Arrays.asList(sessions), codesPerSession);
+        meterRegistry.gauge("kis.websocket.unassigned.codes", this, c -> c.unassignedCount);
     }
-     
+
     public void connect(String approvalKeyJson) {
         JSONObject jsonObject = new JSONObject(approvalKeyJson);
-        this.approvalKey = jsonObject.getString("approval_key");
-        OkHttpClient client = new OkHttpClient();
-
-
-        Request request = new Request.Builder()
-            .url(WS_URL)
-            .addHeader("approval_key", approvalKey)            
-            .addHeader("custtype", "P")                                  
-            .addHeader("tr_type", "1") 
-            .addHeader("content-type", "utf-8")
-            .build();
-            
-        this.webSocket = client.newWebSocket(request, new WebSocketListener() {
-            @Override
-            public void onOpen(WebSocket webSocket, Response response) {
-                log.info("[LOG] 웹소켓 연결 성공");
-                String[] subscriptionlist = {}; //구독할 리스트(삼성전자, sk하이닉스)
-                subscribeStocks(subscriptionlist);
-
-                // // 테스트용 타이머 추가
-                // Timer timer = new Timer();
-                // timer.scheduleAtFixedRate(new TimerTask() {
-                //     @Override
-                //     public void run() {
-                //         String testText = "0|H0STCNT0|002|005930^093354^71900^5^-100^-0.14^72023.83^72100^72400^71700^71900^71800^1^3052507^219853241700^5105^6937^1832^84.90^1366314^1159996^1^0.39^20.28^090020^5^-200^090820^5^-500^092619^2^200^20230612^20^N^65945^216924^1118750^2199206^0.05^2424142^125.92^0^^72100^005930^093354^72000^5^+500^-0.14^72023.83^72100^72400^71700^71900^71800^1^3052507^219853241700^5105^6937^1832^84.90^1366314^1159996^1^0.39^20.28^090020^5^-200^090820^5^-500^092619^2^200^20230612^20^N^65945^216924^1118750^2199206^0.05^2424142^125.92^0^^72100";
-                //         onMessage(webSocket, testText);
-                //     }
-                // }, 0, 2000); // 2초마다 실행
-            }
+        sessions[0].connect(jsonObject.getString("approval_key"));
+        // 나머지 세션은 각자 접속키를 발급받아 연결
+        for (int i = 1; i < sessions.length; i++) {
+            sessions[i].start();
+        }
+    }
 
-            @Override
-            public void onMessage(WebSocket webSocket, String text) {
-                try {
-                    
-                    //log.info("원본 데이터: {}", text);
-                    // test용 데이터
-                    // String text = "0|H0STCNT0|002|005930^093354^71900^5^-100^-0.14^72023.83^72100^72400^71700^71900^71800^1^3052507^219853241700^5105^6937^1832^84.90^1366314^1159996^1^0.39^20.28^090020^5^-200^090820^5^-500^092619^2^200^20230612^20^N^65945^216924^1118750^2199206^0.05^2424142^125.92^0^^72100^005930^093354^72000^5^+500^-0.14^72023.83^72100^72400^71700^71900^71800^1^3052507^219853241700^5105^6937^1832^84.90^1366314^1159996^1^0.39^20.28^090020^5^-200^090820^5^-500^092619^2^200^20230612^20^N^65945^216924^1118750^2199206^0.05^2424142^125.92^0^^72100";
-                    // 데이터가 |로 구분되어 있으므로 분리
-                    String[] data = text.split("\\|");
-
-                    if (data.length > 3) {
-                        String text_encryption = data[0];
-                        String text_tr_id = data[1];
-                        int text_data_number = Integer.parseInt(data[2]);
-                        String text_response_messages = data[3];
- 
-                        String[] responsedata = text_response_messages.split("\\^");
-                        
-                        for (int i = 0; i < text_data_number; i++) {
-                            // 종목 당 데이터가 46개!
-                            String MKSC_SHRN_ISCD = responsedata[i * 46]; //유가증권 단축 종목코드
-                            String STCK_CNTG_HOUR = responsedata[i * 46 + 1]; //주식 체결 시간
-                            String STCK_PRPR = responsedata[i * 46 + 2]; //주식 현재가
-                            String PRDY_VRSS_SIGN = responsedata[i * 46 + 3]; //전일 대비 부호
-                            String PRDY_VRSS = responsedata[i * 46 + 4]; // 전일 대비
-                            String PRDY_CTRT = responsedata[i * 46 + 5]; // 전일 대비율
-                            String CNTG_VOL = responsedata[i * 46 + 12]; //체결 거래량
-        
-//                            // 테스트용
-//                            log.info("유가증권 단축 종목코드(MKSC_SHRN_ISCD): {}, 주식 현재가(STCK_PRPR): {}, 주식 체결 시간(STCK_CNTG_HOUR): {}, 전일 대비 부호 (PRDY_VRSS_SIGN) : {}, 전일 대비율(PRDY_CTRT): {}, 체결 거래량(CNTG_VOL) : {}, 전일 대비(PRDY_VRSS) : {}",
-//                                MKSC_SHRN_ISCD, STCK_PRPR, STCK_CNTG_HOUR, PRDY_VRSS_SIGN, PRDY_CTRT, CNTG_VOL, PRDY_VRSS);
-//
-//                            // 테스트용
-//                            if (MKSC_SHRN_ISCD.equals("005930")) {
-//                                log.info("삼성전자 현재가: {}, 시간: {}", STCK_PRPR, STCK_CNTG_HOUR);
-//                            } else if (MKSC_SHRN_ISCD.equals("000660")) {
-//                                log.info("sk하이닉스 현재가: {}, 시간: {}", STCK_PRPR, STCK_CNTG_HOUR);
-//                            }
-                            
-                            // Kafka로 메시지 전송
-                            String kafkaMessage = String.format(
-                                    "{\"stockId\": \"%s\", \"currentPrice\": \"%s\", \"fluctuationPrice\": \"%s\",\"fluctuationRate\": \"%s\",\"fluctuationSign\": \"%s\", \"transactionVolume\": \"%s\", \"tradingTime\": \"%s\"}",
-                                    MKSC_SHRN_ISCD, STCK_PRPR, PRDY_VRSS, PRDY_CTRT, PRDY_VRSS_SIGN, CNTG_VOL, STCK_CNTG_HOUR
-                            );
-                            
-                            // 주식 종목에 따라 다른 토픽으로 전송
-                            String topic = "realtime-data-" + MKSC_SHRN_ISCD; // 예: "realtime-data-005930"
-                            kafkaProducerService.sendMessage(topic, kafkaMessage);
-                            //log.info("Kafka로 전송: Topic={}, Message={}", topic, kafkaMessage);
-
-                            // String testKafkaMessage = String.format(
-                            //         "{\"stockId\": \"100000\", \"currentPrice\": \"100000\", \"fluctuationPrice\": \"100000\",\"fluctuationRate\": \"100000\",\"fluctuationSign\": \"100000\", \"transactionVolume\": \"100000\", \"tradingTime\": \"100000\", }"
-                            // ); 
-
-                            // kafkaProducerService.sendMessage(topic, testKafkaMessage);
-                        }
-        
-                }
+    @PreDestroy
+    public void shutdown() {
+        for (KisWebSocketSession session : sessions) {
+            session.close();
+        }
+        scheduler.shutdownNow();
+        approvalExecutor.shutdownNow();
+    }
 
-                } catch (Exception e) {
-                   log.error("[ERROR] 데이터 처리 중 오류: ", e);
-                }
-            }
+    /** 체결(H0STCNT0)과 호가(H0STASP0) feed. 호가창 저장소는 호출마다(세션마다) 새로 만든다 */
+    private KisFeed[] createFeeds() {
+        KisFeed trades = new KisFeed("H0STCNT0", TickField.COUNT, this::publishTrade);
+        if (!orderBookEnabled) {
+            return new KisFeed[]{trades};
+        }
+        OrderBookStore books = new OrderBookStore();
+        return new KisFeed[]{trades, new KisFeed(OrderBook.TR_ID, OrderBook.FIELD_COUNT, record -> publishOrderBook(books, record))};
+    }
 
-            @Override
-            public void onFailure(WebSocket webSocket, Throwable t, Response response) {
-                log.error("웹소켓 에러: ", t);
-            }
-        });
+    // 체결 레코드 하나를 Tick으로 한 번만 파싱해 Kafka로 전송 (conflation 설정 시 종목별로 모아서). JSON은 컨슈머가 브라우저/Redis로 보낼 때 만든다
+    // 모든 세션의 리더 스레드에서 동시에 호출된다
+    private void publishTrade(KisFrameParser record) {
+        Tick tick = Tick.from(record);
+        tickConflator.publish(tick);
+        //log.info("Kafka로 전송: Tick={}", tick);
     }
 
-    //종목 코드로 구독 요청 stockCodes 종목 코드
-    public void subscribeStocks(String[] stockCodes) { // 리스트형식으로 받음
-        if (webSocket == null) {
-            log.error("[ERROR] WebSocket 연결 실패");
-            return;
+    // 호가 레코드로 세션의 호가창을 제자리에서 갱신하고, 바뀐 경우에만 레코드 원문을 Kafka로 전송
+    private void publishOrderBook(OrderBookStore books, KisFrameParser record) {
+        OrderBook book = books.get(record);
+        if (book.update(record)) {
+            kafkaProducerService.sendMessage(orderBookTopic, book.getStockId(), record.recordText());
         }
-        log.info("[LOG] WebSocket 연결 성공");
-
-        String requestTemplate = "{\"header\":{\"approval_key\":\"%s\",\"custtype\":\"P\",\"tr_type\":\"1\",\"content-type\":\"utf-8\"},\"body\":{\"input\":{\"tr_id\":\"H0STCNT0\",\"tr_key\":\"%s\"}}}";
+    }
 
-        for (String stockCode : stockCodes) {
-            String request = String.format(requestTemplate, approvalKey, stockCode);
-            webSocket.send(request);
-            log.info("[LOG] 종목 코드 {} 구독 요청 전송", stockCode);
+    /**
+     * 저널 세그먼트 하나를 처음부터 읽어 실시간 수신과 같은 경로(publishTrade)로 Kafka에 다시 보낸다.
+     * 암호화된 프레임은 저널에 함께 남은 구독 응답의 키로 복호화하고, 그 외 제어 메시지는 건너뛴다.
+     *
+     * @return 다시 보낸 체결 레코드 수
+     */
+    public long replayJournal(Path segment) throws IOException {
+        KisFeed[] feeds = createFeeds();
+        KisFrameParser[] parsers = new KisFrameParser[feeds.length];
+        for (int i = 0; i < feeds.length; i++) {
+            parsers[i] = new KisFrameParser(feeds[i].fieldsPerRecord);
         }
+        KisFrameDecryptor decryptor = new KisFrameDecryptor();
+        long published = 0;
+        try (KisFrameJournalReader reader = KisFrameJournalReader.open(segment)) {
+            while (reader.next()) {
+                String frame = reader.frame();
+                try {
+                    if (KisFrameDecryptor.isEncrypted(frame)) {
+                        frame = decryptor.decrypt(frame);
+                    }
+                    int feed = KisFeed.indexOf(feeds, frame);
+                    int records = feed < 0 ? -1 : parsers[feed].parse(frame, feeds[feed].handler);
+                    if (records > 0) {
+                        published += records;
+                    } else {
+                        decryptor.registerFromResponse(frame);
+                    }
+                } catch (RuntimeException e) {
+                    log.warn("[WARN] 저널 프레임 재전송 건너뜀 ({}): {}", segment.getFileName(), e.getMessage());
+                }
+            }
+        }
+        log.info("[LOG] 저널 재전송 완료: {} ({}건)", segment, published);
+        return published;
     }
 
-    // 구독 목록 업데이트
-    public void updateSubscriptions(String[] newStockCodes) {
-        subscribeStocks(newStockCodes);
-        log.info("[LOG] 새로운 구독 목록 업데이트: {}", Arrays.toString(newStockCodes));
+    //종목 코드로 구독 요청 stockCodes 종목 코드
+    public synchronized void subscribeStocks(String[] stockCodes) { // 리스트형식으로 받음
+        SortedSet<String> codes = new TreeSet<>(assigner.codes());
+        codes.addAll(Arrays.asList(stockCodes));
+        rebalance(codes);
     }
-}
 
+    /**
+     * 종목 코드 집합을 세션에 다시 배정하고, 배정이 바뀐 코드만 해제/등록한다 ({@link KisSessionAssigner}).
+     * 세션은 끊겨 있어도 구독 목록을 기억했다가 연결될 때 등록하므로 연결 상태와 무관하게 호출할 수 있다.
+     */
+    private void rebalance(SortedSet<String> codes) {
+        unassignedCount = assigner.rebalance(codes, KisWebSocketSession::unsubscribe, KisWebSocketSession::subscribe);
+        if (unassignedCount > 0) {
+            log.warn("[WARN] 세션 한도 초과로 {}개 종목을 구독하지 못함 (세션 {}개 x {}개, 등록 한도 {})",
+                    unassignedCount, sessions.length, codesPerSession, maxSubscriptionsPerSession);
+        }
+    }
 
+    // 구독 목록 업데이트: 전달된 목록으로 교체. 새로 들어온 종목만 등록하고 빠진 종목은 해제한다
+    public synchronized void updateSubscriptions(String[] newStockCodes) {
+        SortedSet<String> codes = new TreeSet<>(Arrays.asList(newStockCodes));
+        long added = codes.stream().filter(code -> !assigner.isAssigned(code)).count();
+        long removed = assigner.codes().stream().filter(code -> !codes.contains(code)).count();
+        rebalance(codes);
+        log.info("[LOG] 새로운 구독 목록 업데이트: {} (추가 {}, 해제 {})", Arrays.toString(newStockCodes), added, removed);
+    }
+}
@@ -8,6 +8,7 @@ import okhttp3.Request;
 import okhttp3.Response;
 import okhttp3.RequestBody;
 import okhttp3.MediaType;
+import org.json.JSONObject;
 
 import java.io.IOException;
 import java.util.Map;
@@ -56,6 +57,11 @@ public class KisWebSocketService {
             return response.body().string();
         }
     }
+
+    // 웹소켓 재연결 시 사용. 응답 JSON에서 approval_key만 꺼낸다
+    public String getApprovalKey() throws IOException {
+        return new JSONObject(getWebSocketApprovalKey()).getString("approval_key");
+    }
 }
 
 
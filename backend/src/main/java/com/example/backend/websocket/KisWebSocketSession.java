@@ -0,0 +1,355 @@
+package com.example.backend.websocket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.WebSocket;
+import okhttp3.WebSocketListener;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * KIS 실시간 웹소켓 연결 하나를 감시하는 세션.
+ *
+ * 연결이 끊기면(onFailure/onClosed) 지터가 들어간 지수 백오프로 재연결하고,
+ * 재연결 때마다 KisWebSocketService에서 접속키를 새로 발급받는다.
+ * 구독 목록은 이 세션이 직접 관리하며 연결이 열릴 때마다 다시 등록한다.
+ *
+ * 등록/해제 요청은 바로 보내지 않고 바뀐 종목만 모아 두었다가 controlIntervalMs마다 하나씩 보낸다.
+ * 보내기 전에 다시 원래 상태로 돌아간 종목은 아무 요청도 보내지 않는다.
+ */
+@Slf4j
+class KisWebSocketSession {
+
+    private static final String SUBSCRIBE_TEMPLATE = "{\"header\":{\"approval_key\":\"%s\",\"custtype\":\"P\",\"tr_type\":\"%s\",\"content-type\":\"utf-8\"},\"body\":{\"input\":{\"tr_id\":\"%s\",\"tr_key\":\"%s\"}}}";
+    private static final String TR_TYPE_REGISTER = "1";
+    private static final String TR_TYPE_UNREGISTER = "2";
+
+    private final int id;
+    private final String url;
+    private final OkHttpClient httpClient;
+    private final KisWebSocketService approvalService;
+    private final ScheduledExecutorService scheduler;
+    // 접속키 발급(블로킹 HTTP)용. supervisor 스레드의 등록 요청 페이싱/백오프 타이머를 막지 않도록 따로 돈다
+    private final Executor approvalExecutor;
+    private final KisFeed[] feeds;
+    private final KisFrameJournal journal;
+    private final long initialDelayMs;
+    private final long maxDelayMs;
+
+    // OkHttp 리더 스레드 전용. feeds와 같은 순서
+    private final KisFrameParser[] frameParsers;
+    // 구독 응답으로 받은 TR별 AES 키 (연결마다 새로 내려온다)
+    private final KisFrameDecryptor decryptor = new KisFrameDecryptor();
+
+    // 구독 목록 (재연결 시 재등록 기준)
+    private final Set<String> subscriptions = ConcurrentHashMap.newKeySet();
+    // 현재 연결에서 KIS에 등록 요청을 보낸 TR_ID+종목 / 등록 상태를 맞춰야 하는 종목 (세션 락으로 보호)
+    private final Set<String> registered = new HashSet<>();
+    private final Set<String> pending = new LinkedHashSet<>();
+    private final AtomicInteger attempts = new AtomicInteger();
+
+    private volatile WebSocket webSocket;
+    private volatile boolean open;
+    private volatile boolean stopped = true;
+    private volatile String approvalKey;
+    private volatile long disconnectedAtNanos; // 0이면 끊긴 적 없음
+
+    private final Counter reconnectCounter;
+    private final Counter disconnectCounter;
+    private final Timer gapTimer;
+
+    KisWebSocketSession(int id, String url, OkHttpClient httpClient, KisWebSocketService approvalService,
+                        ScheduledExecutorService scheduler, Executor approvalExecutor, KisFeed[] feeds,
+                        KisFrameJournal journal, long initialDelayMs, long maxDelayMs, long controlIntervalMs, MeterRegistry meterRegistry) {
+        this.id = id;
+        this.url = url;
+        this.httpClient = httpClient;
+        this.approvalService = approvalService;
+        this.scheduler = scheduler;
+        this.approvalExecutor = approvalExecutor;
+        this.feeds = feeds;
+        this.frameParsers = new KisFrameParser[feeds.length];
+        for (int i = 0; i < feeds.length; i++) {
+            frameParsers[i] = new KisFrameParser(feeds[i].fieldsPerRecord);
+        }
+        this.journal = journal;
+        this.initialDelayMs = initialDelayMs;
+        this.maxDelayMs = maxDelayMs;
+
+        Tags tags = Tags.of("session", String.valueOf(id));
+        this.reconnectCounter = meterRegistry.counter("kis.websocket.reconnects", tags);
+        this.disconnectCounter = meterRegistry.counter("kis.websocket.disconnects", tags);
+        this.gapTimer = Timer.builder("kis.websocket.gap")
+                .description("KIS 실시간 연결이 끊긴 뒤 다시 열릴 때까지 걸린 시간")
+                .tags(tags)
+                .register(meterRegistry);
+        meterRegistry.gauge("kis.websocket.connected", tags, this, s -> s.open ? 1 : 0);
+        meterRegistry.gauge("kis.websocket.gap.current.seconds", tags, this, KisWebSocketSession::currentGapSeconds);
+        meterRegistry.gauge("kis.websocket.subscriptions", tags, subscriptions, Set::size);
+        meterRegistry.gauge("kis.websocket.control.pending", tags, this, KisWebSocketSession::pendingCount);
+
+        scheduler.scheduleWithFixedDelay(this::sendNextControl, controlIntervalMs, controlIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    int id() {
+        return id;
+    }
+
+    boolean isOpen() {
+        return open;
+    }
+
+    Set<String> subscriptions() {
+        return subscriptions;
+    }
+
+    /** 이미 발급받은 접속키로 연결. 이후 끊기면 자동으로 재연결한다. */
+    synchronized void connect(String approvalKey) {
+        stopped = false;
+        WebSocket previous = webSocket;
+        if (previous != null) {
+            webSocket = null;
+            previous.close(1000, "reconnect");
+        }
+        open(approvalKey);
+    }
+
+    /** 접속키를 새로 발급받아 연결 (풀에서 두 번째 이후 세션용) */
+    synchronized void start() {
+        stopped = false;
+        if (webSocket == null) {
+            openWithNewKey();
+        }
+    }
+
+    /** 재연결 없이 종료 */
+    synchronized void close() {
+        stopped = true;
+        WebSocket current = webSocket;
+        webSocket = null;
+        open = false;
+        if (current != null) {
+            current.close(1000, "shutdown");
+        }
+    }
+
+    /** 구독 목록에 추가. 연결되어 있으면 차례가 올 때 등록 요청을 보내고, 끊겨 있으면 다음 연결 때 등록된다. */
+    synchronized void subscribe(String stockCode) {
+        if (subscriptions.add(stockCode)) {
+            pending.add(stockCode);
+        }
+    }
+
+    /** 구독 목록에서 빼고, 이미 등록된 종목이면 차례가 올 때 해제 요청을 보낸다. */
+    synchronized void unsubscribe(String stockCode) {
+        if (subscriptions.remove(stockCode)) {
+            pending.add(stockCode);
+        }
+    }
+
+    private void open(String approvalKey) {
+        this.approvalKey = approvalKey;
+        Request request = new Request.Builder()
+            .url(url)
+            .addHeader("approval_key", approvalKey)
+            .addHeader("custtype", "P")
+            .addHeader("tr_type", "1")
+            .addHeader("content-type", "utf-8")
+            .build();
+        this.webSocket = httpClient.newWebSocket(request, new Listener());
+    }
+
+    private boolean sendControl(String trType, String trId, String stockCode) {
+        WebSocket current = webSocket;
+        if (current == null) {
+            return false;
+        }
+        boolean queued = current.send(String.format(SUBSCRIBE_TEMPLATE, approvalKey, trType, trId, stockCode));
+        log.info("[LOG] session {} 종목 코드 {} {} 구독 요청 전송 (tr_type={})", id, stockCode, trId, trType);
+        return queued;
+    }
+
+    // 연결 상태 변경은 모두 세션 락 안에서 처리한다.
+    // newWebSocket()이 반환되기 전에 콜백이 먼저 도착해도 webSocket 필드가 채워진 뒤에 처리된다.
+    private synchronized void onConnected(WebSocket socket) {
+        if (socket != webSocket) {
+            return;
+        }
+        open = true;
+        attempts.set(0);
+        long disconnectedAt = disconnectedAtNanos;
+        if (disconnectedAt != 0) {
+            long gap = System.nanoTime() - disconnectedAt;
+            gapTimer.record(gap, TimeUnit.NANOSECONDS);
+            disconnectedAtNanos = 0;
+            log.info("[LOG] session {} 재연결 성공 (끊김 {}ms), 구독 {}건 재등록", id,
+                    TimeUnit.NANOSECONDS.toMillis(gap), subscriptions.size());
+        } else {
+            log.info("[LOG] session {} 웹소켓 연결 성공", id);
+        }
+        // 새 연결에는 등록된 종목이 없으므로 전체 구독 목록을 다시 보낸다
+        registered.clear();
+        pending.addAll(subscriptions);
+    }
+
+    /**
+     * 대기 중인 종목 중 등록 상태가 구독 목록과 다른 첫 종목/TR에 대해 등록/해제 요청을 하나 보낸다.
+     * 종목은 모든 TR의 등록 상태가 맞춰진 뒤에 대기 목록에서 빠진다.
+     * KIS가 제어 메시지를 몰아서 받으면 거부하므로 스케줄러가 일정 간격으로 호출한다.
+     */
+    private synchronized void sendNextControl() {
+        if (!open) {
+            return;
+        }
+        Iterator<String> it = pending.iterator();
+        while (it.hasNext()) {
+            String stockCode = it.next();
+            boolean wanted = subscriptions.contains(stockCode);
+            for (KisFeed feed : feeds) {
+                String registration = feed.trId + stockCode;
+                if (wanted ? registered.add(registration) : registered.remove(registration)) {
+                    sendControl(wanted ? TR_TYPE_REGISTER : TR_TYPE_UNREGISTER, feed.trId, stockCode);
+                    return;
+                }
+            }
+            it.remove();
+        }
+    }
+
+    private synchronized int pendingCount() {
+        return pending.size();
+    }
+
+    private synchronized void onDisconnected(WebSocket socket, String reason) {
+        // 교체된 예전 소켓의 콜백은 무시
+        if (socket != webSocket) {
+            return;
+        }
+        webSocket = null;
+        open = false;
+        registered.clear();
+        disconnectCounter.increment();
+        if (disconnectedAtNanos == 0) {
+            disconnectedAtNanos = System.nanoTime();
+        }
+        log.warn("[WARN] session {} 웹소켓 연결 끊김: {}", id, reason);
+        scheduleReconnect();
+    }
+
+    private void scheduleReconnect() {
+        if (stopped) {
+            return;
+        }
+        long delay = backoffDelay(attempts.getAndIncrement());
+        log.info("[LOG] session {} {}ms 후 재연결 시도", id, delay);
+        scheduler.schedule(this::reconnect, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /** 지수 백오프 상한의 절반은 고정, 나머지 절반은 랜덤 (equal jitter) */
+    long backoffDelay(int attempt) {
+        long ceiling = Math.min(maxDelayMs, initialDelayMs << Math.min(attempt, 20));
+        long half = ceiling / 2;
+        return half + ThreadLocalRandom.current().nextLong(ceiling - half + 1);
+    }
+
+    private void reconnect() {
+        if (stopped || webSocket != null) {
+            return;
+        }
+        reconnectCounter.increment();
+        openWithNewKey();
+    }
+
+    /** 접속키 발급은 approvalExecutor에서, 연결은 다시 supervisor 스레드에서 */
+    private void openWithNewKey() {
+        approvalExecutor.execute(() -> {
+            String newApprovalKey;
+            try {
+                newApprovalKey = approvalService.getApprovalKey();
+            } catch (Exception e) {
+                log.error("[ERROR] session {} 접속키 재발급 실패: {}", id, e.getMessage());
+                scheduleReconnect();
+                return;
+            }
+            scheduler.execute(() -> openIfDisconnected(newApprovalKey));
+        });
+    }
+
+    private synchronized void openIfDisconnected(String newApprovalKey) {
+        if (!stopped && webSocket == null) {
+            open(newApprovalKey);
+        }
+    }
+
+    private double currentGapSeconds() {
+        long disconnectedAt = disconnectedAtNanos;
+        return disconnectedAt == 0 ? 0 : (System.nanoTime() - disconnectedAt) / 1e9;
+    }
+
+    private class Listener extends WebSocketListener {
+        @Override
+        public void onOpen(WebSocket socket, Response response) {
+            onConnected(socket);
+        }
+
+        @Override
+        public void onMessage(WebSocket socket, String text) {
+            // 수신 원문을 그대로 저널에 남긴다 (비활성이면 바로 반환)
+            journal.append(text);
+            try {
+                // 암호화된 프레임(1|...)은 구독 응답으로 받은 키로 풀어서 평문과 같은 경로로 파싱
+                String frame = KisFrameDecryptor.isEncrypted(text) ? decryptor.decrypt(text) : text;
+                // 실시간 데이터는 TR_ID에 맞는 feed의 handler를 레코드 수만큼 호출, 구독 응답(JSON)이나 PINGPONG은 제어 메시지
+                int feed = KisFeed.indexOf(feeds, frame);
+                if (feed < 0 || frameParsers[feed].parse(frame, feeds[feed].handler) < 0) {
+                    onControlMessage(socket, text);
+                }
+            } catch (Exception e) {
+                log.error("[ERROR] 데이터 처리 중 오류: ", e);
+            }
+        }
+
+        private void onControlMessage(WebSocket socket, String text) {
+            if (text.contains("PINGPONG")) {
+                // KIS는 PINGPONG 메시지를 그대로 돌려받지 못하면 연결을 끊는다
+                socket.send(text);
+                return;
+            }
+            String trId = decryptor.registerFromResponse(text);
+            if (trId != null) {
+                log.info("[LOG] 세션 {} {} 복호화 키 수신", id, trId);
+            }
+        }
+
+        @Override
+        public void onClosing(WebSocket socket, int code, String reason) {
+            socket.close(code, reason);
+        }
+
+        @Override
+        public void onClosed(WebSocket socket, int code, String reason) {
+            onDisconnected(socket, "closed " + code + " " + reason);
+        }
+
+        @Override
+        public void onFailure(WebSocket socket, Throwable t, Response response) {
+            log.error("웹소켓 에러: ", t);
+            onDisconnected(socket, String.valueOf(t.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.backend.websocket;
+
+import com.example.backend.dto.OrderBook;
+import com.example.backend.dto.TickField;
+
+/**
+ * 종목코드 → {@link OrderBook} 맵. 세션(리더 스레드)마다 하나씩 쓴다.
+ *
+ * 호가 메시지마다 종목코드 String을 만들지 않도록 코드를 long으로 패킹해 open addressing 배열에서 찾는다.
+ * 처음 보는 종목일 때만 OrderBook을 만든다.
+ */
+final class OrderBookStore {
+
+    private long[] keys = new long[256];
+    private OrderBook[] books = new OrderBook[256];
+    private int size;
+
+    /** 레코드 종목의 호가창. 없으면 만든다 */
+    OrderBook get(KisFrameParser record) {
+        long key = TickField.packCode(record.field(0));
+        if (key == 0) {
+            throw new IllegalArgumentException(OrderBook.TR_ID + " record without stock code");
+        }
+        int slot = find(keys, key);
+        if (keys[slot] == key) {
+            return books[slot];
+        }
+        if (size * 2 >= keys.length) {
+            grow();
+            slot = find(keys, key);
+        }
+        OrderBook book = new OrderBook(record.text(0));
+        keys[slot] = key;
+        books[slot] = book;
+        size++;
+        return book;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /** key가 있는 칸 또는 넣을 빈 칸 */
+    private static int find(long[] keys, long key) {
+        int mask = keys.length - 1;
+        int slot = (int) ((key * 0x9E3779B97F4A7C15L) >>> 40) & mask;
+        while (keys[slot] != 0 && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        OrderBook[] oldBooks = books;
+        keys = new long[oldKeys.length * 2];
+        books = new OrderBook[oldBooks.length * 2];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int slot = find(keys, oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                books[slot] = oldBooks[i];
+            }
+        }
+    }
+}
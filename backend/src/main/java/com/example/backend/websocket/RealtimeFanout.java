@@ -0,0 +1,102 @@
+package com.example.backend.websocket;
+
+import com.example.backend.dto.Tick;
+import com.example.backend.service.RedisCircuitBreaker;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 저장이 끝난 실시간 체결을 모든 replica의 웹소켓 세션에 전달한다.
+ *
+ * 체결 토픽은 replica들이 같은 컨슈머 그룹으로 나눠 읽으므로 한 체결은 한 pod에만 도착한다.
+ * realtime.fanout=redis(기본)면 그 pod가 Redis 채널에 PUBLISH 하고, 모든 pod(자신 포함)가 구독해서 자기 세션에 브로드캐스트한다.
+ * Redis 이력 저장은 체결을 받은 pod 한 곳에서만 하고, 다른 pod는 채널만 구독한다.
+ * replica가 하나뿐이면 realtime.fanout=local 로 Redis를 거치지 않고 바로 브로드캐스트할 수 있다.
+ */
+@Slf4j
+@Component
+public class RealtimeFanout {
+
+    private final StockWebSocketHandler webSocketHandler;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final RedisCircuitBreaker redisBreaker;
+    private final boolean redisFanout;
+    private final String channel;
+    private final byte[] channelBytes;
+    private volatile long lastErrorLogNanos;
+
+    @Autowired
+    public RealtimeFanout(StockWebSocketHandler webSocketHandler,
+                          RedisTemplate<String, String> redisTemplate,
+                          RedisMessageListenerContainer listenerContainer,
+                          RedisCircuitBreaker redisBreaker,
+                          @Value("${realtime.fanout:redis}") String mode,
+                          @Value("${realtime.fanout.channel:realtime-ticks}") String channel) {
+        this.webSocketHandler = webSocketHandler;
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.redisBreaker = redisBreaker;
+        this.redisFanout = !"local".equalsIgnoreCase(mode);
+        this.channel = channel;
+        this.channelBytes = StringRedisSerializer.UTF_8.serialize(channel);
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        if (!redisFanout) {
+            log.info("[LOG] 실시간 체결 fan-out: local (이 pod의 세션에만 전송)");
+            return;
+        }
+        listenerContainer.addMessageListener((message, pattern) ->
+                webSocketHandler.broadcastMessage(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(channel));
+        log.info("[LOG] 실시간 체결 fan-out: Redis 채널 {}", channel);
+    }
+
+    /** 종목별 체결(오래된 순)을 전달한다. 실패해도 예외를 던지지 않는다 (이미 저장은 끝난 체결이므로) */
+    public void publish(Collection<List<Tick>> ticksBySymbol) {
+        if (!redisFanout) {
+            for (List<Tick> ticks : ticksBySymbol) {
+                for (Tick tick : ticks) {
+                    webSocketHandler.broadcast(tick.getStockId(), tick.toJson());
+                }
+            }
+            return;
+        }
+        if (redisBreaker.isOpen()) {
+            // 다른 stripe에서 이미 Redis 장애를 확인했으면 명령 타임아웃을 기다리지 않는다
+            return;
+        }
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (List<Tick> ticks : ticksBySymbol) {
+                    for (Tick tick : ticks) {
+                        connection.publish(channelBytes, StringRedisSerializer.UTF_8.serialize(tick.toJson()));
+                    }
+                }
+                return null;
+            });
+        } catch (RuntimeException e) {
+            // Redis 장애 시 배치마다 실패하므로 로그는 1초에 한 번만
+            long now = System.nanoTime();
+            if (now - lastErrorLogNanos > TimeUnit.SECONDS.toNanos(1)) {
+                lastErrorLogNanos = now;
+                log.warn("[WARN] 실시간 체결 fan-out 실패: {}", e.toString());
+            }
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package com.example.backend.websocket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 세션 하나의 송신 큐와 writer.
+ *
+ * 브로드캐스트하는 쪽(Kafka 리스너, Redis 구독 스레드)은 {@link #offer}로 큐에 넣기만 하고 바로 돌아간다.
+ * 실제 전송은 writer 풀에서 세션마다 한 번에 하나의 drain 작업만 돌며 순서대로 보낸다.
+ * 프레임({@link TextMessage})은 브로드캐스트할 때 한 번만 만들고 모든 세션 큐가 같은 객체를 공유한다.
+ *
+ * 큐가 가득 차면 그때부터 종목(conflation key)별 최신 메시지만 남기고 이전 것은 버린다.
+ * 큐를 다 비우고 밀린 최신 메시지까지 보내면 다시 큐 모드로 돌아간다.
+ * laggard timeout 동안 한 번도 따라잡지 못한 세션은 끊는다. 브라우저는 재연결 후 REST로 최신 값을 다시 받는다.
+ *
+ * batch window가 있으면 첫 메시지가 들어온 뒤 window 동안 모인 메시지를 JSON 배열 프레임 하나로 보낸다.
+ *
+ * compact 세션은 체결을 {@link CompactTickCodec}으로 보낸다. 이 세션에 실제로 보낸 값을 기준으로 전송 시점에 delta를 만들므로
+ * conflation으로 버려진 메시지가 있어도 브라우저 상태와 어긋나지 않는다.
+ */
+@Slf4j
+final class SessionSender implements Runnable {
+
+    /** 모든 세션이 함께 쓰는 writer, 설정, 메트릭 */
+    static final class Shared {
+        final ExecutorService writer;
+        final ScheduledExecutorService batchScheduler;
+        final int capacity;
+        final long laggardTimeoutNanos;
+        final long batchWindowMs;
+        final Timer sendLatency;
+        final Counter conflatedCounter;
+        final Counter laggardCounter;
+        final AtomicInteger queued = new AtomicInteger();
+
+        Shared(ExecutorService writer, ScheduledExecutorService batchScheduler, int capacity,
+               long laggardTimeoutNanos, long batchWindowMs,
+               Timer sendLatency, Counter conflatedCounter, Counter laggardCounter) {
+            this.writer = writer;
+            this.batchScheduler = batchScheduler;
+            this.capacity = capacity;
+            this.laggardTimeoutNanos = laggardTimeoutNanos;
+            this.batchWindowMs = batchWindowMs;
+            this.sendLatency = sendLatency;
+            this.conflatedCounter = conflatedCounter;
+            this.laggardCounter = laggardCounter;
+        }
+    }
+
+    /** 브로드캐스트 한 건. 원래 JSON 프레임과, 체결이면 compact 인코딩용 값 배열 */
+    static final class Push {
+        final TextMessage frame;
+        final String[] tickValues;
+
+        Push(TextMessage frame, String[] tickValues) {
+            this.frame = frame;
+            this.tickValues = tickValues;
+        }
+    }
+
+    final WebSocketSession session;
+    final boolean compact;
+    private final Shared shared;
+    // compact 세션에 종목별로 마지막으로 보낸 체결 값. writer(한 번에 하나)만 접근
+    private final Map<String, String[]> lastSent = new HashMap<>();
+
+    // 아래 필드는 모두 this로 보호
+    private final ArrayDeque<Push> queue = new ArrayDeque<>();
+    private final Map<String, Push> conflated = new LinkedHashMap<>();
+    private boolean scheduled;
+    private boolean closed;
+    private long conflatingSinceNanos;
+
+    SessionSender(WebSocketSession session, boolean compact, Shared shared) {
+        this.session = session;
+        this.compact = compact;
+        this.shared = shared;
+    }
+
+    /** 프레임을 큐에 넣는다. 블록하지 않는다 */
+    void offer(String conflationKey, Push frame) {
+        boolean closeLaggard = false;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            if (conflated.isEmpty() && queue.size() < shared.capacity) {
+                queue.add(frame);
+                shared.queued.incrementAndGet();
+            } else {
+                // 밀리는 중에는 따라잡을 때까지 계속 conflation (같은 종목의 이전 값이 나중에 나가지 않도록)
+                long now = System.nanoTime();
+                if (conflatingSinceNanos == 0) {
+                    conflatingSinceNanos = now;
+                } else if (now - conflatingSinceNanos > shared.laggardTimeoutNanos) {
+                    closeLaggard = true;
+                }
+                if (conflated.put(conflationKey, frame) != null) {
+                    shared.conflatedCounter.increment();
+                } else {
+                    shared.queued.incrementAndGet();
+                }
+            }
+            if (closeLaggard) {
+                discard();
+            } else if (!scheduled) {
+                scheduled = true;
+                schedule();
+            }
+        }
+        if (closeLaggard) {
+            shared.laggardCounter.increment();
+            log.warn("[WARN] 전송이 밀린 WebSocket 세션 종료: {}", session.getId());
+            // writer가 전송 중 막혀 있을 수 있으므로 종료는 별도 작업으로
+            shared.writer.execute(() -> close(CloseStatus.SESSION_NOT_RELIABLE));
+        }
+    }
+
+    private void schedule() {
+        if (shared.batchWindowMs > 0) {
+            shared.batchScheduler.schedule(() -> shared.writer.execute(this), shared.batchWindowMs, TimeUnit.MILLISECONDS);
+        } else {
+            shared.writer.execute(this);
+        }
+    }
+
+    @Override
+    public void run() {
+        if (shared.batchWindowMs > 0) {
+            sendBatch();
+            return;
+        }
+        Push push;
+        while ((push = poll()) != null) {
+            TextMessage frame = encode(push);
+            if (frame != null && !send(frame)) {
+                return;
+            }
+        }
+    }
+
+    /** 이 세션으로 나갈 프레임. compact 세션에서 바뀐 필드가 없으면 null */
+    private TextMessage encode(Push push) {
+        if (!compact || push.tickValues == null) {
+            return push.frame;
+        }
+        String[] last = lastSent.computeIfAbsent(push.tickValues[0], id -> new String[CompactTickCodec.FIELDS.length]);
+        String delta = CompactTickCodec.encodeDelta(push.tickValues, last);
+        return delta == null ? null : new TextMessage(delta);
+    }
+
+    /** window 동안 모인 메시지를 배열 프레임 하나로 보내고, 그 사이 또 쌓였으면 다음 window를 예약 */
+    private void sendBatch() {
+        List<TextMessage> batch = new ArrayList<>();
+        for (Push push : drain()) {
+            TextMessage frame = encode(push);
+            if (frame != null) {
+                batch.add(frame);
+            }
+        }
+        if (!batch.isEmpty() && !send(batch.size() == 1 ? batch.get(0) : join(batch))) {
+            return;
+        }
+        synchronized (this) {
+            if (!closed && (!queue.isEmpty() || !conflated.isEmpty())) {
+                schedule();
+            } else {
+                scheduled = false;
+            }
+        }
+    }
+
+    private static TextMessage join(List<TextMessage> batch) {
+        int length = batch.size() + 1;
+        for (TextMessage frame : batch) {
+            length += frame.getPayload().length();
+        }
+        StringBuilder sb = new StringBuilder(length);
+        sb.append('[');
+        for (int i = 0; i < batch.size(); i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(batch.get(i).getPayload());
+        }
+        return new TextMessage(sb.append(']'));
+    }
+
+    /** 전송. 실패하면 세션을 닫고 false */
+    private boolean send(TextMessage frame) {
+        if (!session.isOpen()) {
+            discard();
+            return false;
+        }
+        long start = System.nanoTime();
+        try {
+            session.sendMessage(frame);
+            return true;
+        } catch (Exception e) {
+            log.warn("[WARN] WebSocket 전송 실패 (session={}): {}", session.getId(), e.getMessage());
+            discard();
+            close(CloseStatus.SERVER_ERROR);
+            return false;
+        } finally {
+            shared.sendLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /** 다음에 보낼 프레임. 없으면 drain 작업을 끝내고 null */
+    private synchronized Push poll() {
+        Push frame = next();
+        if (frame == null) {
+            scheduled = false;
+        }
+        return frame;
+    }
+
+    /** 쌓인 프레임 전부. 배치 모드에서는 전송이 끝난 뒤 scheduled를 정리한다 */
+    private synchronized List<Push> drain() {
+        List<Push> batch = new ArrayList<>(queue.size() + conflated.size());
+        Push frame;
+        while ((frame = next()) != null) {
+            batch.add(frame);
+        }
+        return batch;
+    }
+
+    private Push next() {
+        if (closed) {
+            return null;
+        }
+        Push frame = queue.poll();
+        if (frame == null && !conflated.isEmpty()) {
+            Iterator<Push> it = conflated.values().iterator();
+            frame = it.next();
+            it.remove();
+            if (conflated.isEmpty()) {
+                // 밀린 것을 모두 꺼냈으므로 다시 큐 모드로
+                conflatingSinceNanos = 0;
+            }
+        }
+        if (frame != null) {
+            shared.queued.decrementAndGet();
+        }
+        return frame;
+    }
+
+    /** 세션이 닫혔을 때 남은 메시지를 버리고 더 받지 않는다 */
+    synchronized void discard() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        shared.queued.addAndGet(-(queue.size() + conflated.size()));
+        queue.clear();
+        conflated.clear();
+    }
+
+    private void close(CloseStatus status) {
+        try {
+            session.close(status);
+        } catch (Exception e) {
+            log.debug("WebSocket 세션 종료 중 오류: {}", e.getMessage());
+        }
+    }
+}
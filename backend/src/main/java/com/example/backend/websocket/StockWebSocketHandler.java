@@ -1,47 +1,251 @@
 package com.example.backend.websocket;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.websocket.Session;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.NativeWebSocketSession;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
+import org.springframework.web.util.UriComponentsBuilder;
 
 import lombok.extern.slf4j.Slf4j;
 
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.net.URI;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * 브라우저 실시간 시세 웹소켓.
+ *
+ * 클라이언트는 관심 종목을 구독/해지한다.
+ *   {"type":"subscribe","stockIds":["005930","000660"]}
+ *   {"type":"unsubscribe","stockIds":["005930"]}
+ * 종목코드 → 세션 역색인을 두고, 체결/호가는 그 종목을 구독한 세션에만 보낸다.
+ * 한 번도 구독 메시지를 보내지 않은 세션(이전 버전 클라이언트)은 지금처럼 전 종목을 받는다.
+ *
+ * 전송은 세션별 송신 큐({@link SessionSender})를 거치므로 브로드캐스트하는 리스너 스레드는 느린 브라우저를 기다리지 않는다.
+ *
+ * /ws/stock?format=compact 로 연결한 세션은 체결을 짧은 키 + 바뀐 필드만({@link CompactTickCodec}) 받는다.
+ */
 @Slf4j
 public class StockWebSocketHandler extends TextWebSocketHandler {
 
-    // 연결된 WebSocket 세션 저장
-    private final CopyOnWriteArrayList<WebSocketSession> sessions = new CopyOnWriteArrayList<>();
+    // 세션 하나가 구독할 수 있는 최대 종목 수
+    private static final int MAX_SUBSCRIPTIONS_PER_SESSION = 200;
+    // 체결/호가 JSON은 모두 이 접두어로 시작한다
+    private static final String STOCK_ID_PREFIX = "{\"stockId\":\"";
+    private static final String ORDER_BOOK_FIELD = "\"orderBook\"";
+    private static final String COMPACT_FORMAT = "compact";
+    // Tomcat 블로킹 전송 타임아웃(ms). 세션 user property로 지정한다 (기본 20초)
+    private static final String BLOCKING_SEND_TIMEOUT = "org.apache.tomcat.websocket.BLOCKING_SEND_TIMEOUT";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // 연결된 WebSocket 세션 (세션 ID → 송신 큐)
+    private final Map<String, SessionSender> sessions = new ConcurrentHashMap<>();
+    // 종목코드 → 구독 세션
+    private final Map<String, Set<SessionSender>> subscribers = new ConcurrentHashMap<>();
+    // 세션 ID → 구독 종목 (연결 종료 시 역색인 정리용)
+    private final Map<String, Set<String>> subscriptions = new ConcurrentHashMap<>();
+    // 아직 구독 메시지를 보내지 않아 전 종목을 받는 세션
+    private final Set<SessionSender> firehose = ConcurrentHashMap.newKeySet();
+
+    // compact 세션 수. 없으면 체결 JSON을 compact용으로 파싱하지 않는다
+    private final AtomicInteger compactSessions = new AtomicInteger();
+
+    // 세션 writer와 설정
+    private final SessionSender.Shared shared;
+    private final long sendTimeoutMs;
+
+    /**
+     * @param queueCapacity      세션별 송신 큐 크기. 넘으면 종목별 최신 메시지만 남긴다
+     * @param laggardTimeoutMs   이 시간 동안 밀린 전송을 따라잡지 못한 세션은 끊는다
+     * @param batchWindowMs      0보다 크면 세션마다 이 시간 동안 모인 메시지를 JSON 배열 프레임 하나로 보낸다
+     * @param writerThreads      세션 writer 스레드 수. 0 이하면 코어 수 x 2
+     * @param sendTimeoutMs      전송 한 건이 막혀 있을 수 있는 최대 시간. 넘으면 전송이 실패하고 세션을 끊는다
+     */
+    public StockWebSocketHandler(MeterRegistry meterRegistry, int queueCapacity, long laggardTimeoutMs, long batchWindowMs,
+                                 int writerThreads, long sendTimeoutMs) {
+        // writer 스레드는 고정 개수. 전송이 막힌 세션도 send timeout이 지나면 끊기고 스레드를 돌려주므로
+        // 느린 브라우저가 많아도 스레드가 늘지 않고, 다른 세션의 drain은 그동안 큐에서 기다린다
+        int threads = writerThreads > 0 ? writerThreads : Runtime.getRuntime().availableProcessors() * 2;
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService writer = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "ws-writer-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        ScheduledExecutorService batchScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "ws-batch");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.shared = new SessionSender.Shared(writer, batchScheduler, queueCapacity,
+                TimeUnit.MILLISECONDS.toNanos(laggardTimeoutMs), batchWindowMs,
+                Timer.builder("websocket.send.latency")
+                        .description("WebSocket 프레임 한 건 전송 시간")
+                        .register(meterRegistry),
+                meterRegistry.counter("websocket.send.conflated"),
+                meterRegistry.counter("websocket.session.laggard.closed"));
+        this.sendTimeoutMs = sendTimeoutMs;
+        meterRegistry.gauge("websocket.send.queue.depth", shared.queued);
+        meterRegistry.gaugeMapSize("websocket.sessions", Tags.empty(), sessions);
+    }
+
+    public void shutdown() {
+        shared.batchScheduler.shutdown();
+        shared.writer.shutdown();
+    }
 
     @Override
     public void afterConnectionEstablished(WebSocketSession session) {
         try {
-            sessions.add(session);
+            boolean compact = isCompact(session);
+            applySendTimeout(session);
+            SessionSender sender = new SessionSender(session, compact, shared);
+            if (compact) {
+                compactSessions.incrementAndGet();
+            }
+            sessions.put(session.getId(), sender);
+            firehose.add(sender);
             log.info("[LOG] 새로운 WebSocket 연결: {}", session.getId());
         } catch (Exception e) {
             log.error("[ERROR] WebSocket 연결 중 오류 발생:", e);
         }
     }
 
+    private void applySendTimeout(WebSocketSession session) {
+        if (session instanceof NativeWebSocketSession nativeSession) {
+            Session standardSession = nativeSession.getNativeSession(Session.class);
+            if (standardSession != null) {
+                standardSession.getUserProperties().put(BLOCKING_SEND_TIMEOUT, sendTimeoutMs);
+            }
+        }
+    }
+
+    private static boolean isCompact(WebSocketSession session) {
+        URI uri = session.getUri();
+        return uri != null && COMPACT_FORMAT.equals(
+                UriComponentsBuilder.fromUri(uri).build().getQueryParams().getFirst("format"));
+    }
+
     @Override
     public void handleTextMessage(WebSocketSession session, TextMessage message) {
-        // 필요 시 클라이언트 메시지 처리
+        SessionSender sender = sessions.get(session.getId());
+        if (sender == null) {
+            return;
+        }
+        try {
+            JsonNode request = objectMapper.readTree(message.getPayload());
+            String type = request.path("type").asText();
+            JsonNode stockIds = request.path("stockIds");
+            if (!stockIds.isArray()) {
+                log.debug("stockIds 없는 클라이언트 메시지 무시: {}", session.getId());
+                return;
+            }
+            if ("subscribe".equals(type)) {
+                for (JsonNode stockId : stockIds) {
+                    subscribe(sender, stockId.asText());
+                }
+            } else if ("unsubscribe".equals(type)) {
+                for (JsonNode stockId : stockIds) {
+                    unsubscribe(sender, stockId.asText());
+                }
+            } else {
+                log.debug("알 수 없는 클라이언트 메시지 무시: {}", type);
+            }
+        } catch (Exception e) {
+            log.warn("[WARN] 잘못된 클라이언트 메시지 (session={}): {}", session.getId(), e.getMessage());
+        }
+    }
+
+    private void subscribe(SessionSender sender, String stockId) {
+        Set<String> stockIds = subscriptions.computeIfAbsent(sender.session.getId(), id -> ConcurrentHashMap.newKeySet());
+        firehose.remove(sender);
+        if (stockId.isEmpty() || stockIds.size() >= MAX_SUBSCRIPTIONS_PER_SESSION || !stockIds.add(stockId)) {
+            return;
+        }
+        subscribers.computeIfAbsent(stockId, id -> ConcurrentHashMap.newKeySet()).add(sender);
+    }
+
+    private void unsubscribe(SessionSender sender, String stockId) {
+        Set<String> stockIds = subscriptions.computeIfAbsent(sender.session.getId(), id -> ConcurrentHashMap.newKeySet());
+        firehose.remove(sender);
+        if (stockIds.remove(stockId)) {
+            removeSubscriber(stockId, sender);
+        }
+    }
+
+    private void removeSubscriber(String stockId, SessionSender sender) {
+        // 마지막 구독자가 빠지면 종목 항목도 지운다
+        subscribers.computeIfPresent(stockId, (id, set) -> {
+            set.remove(sender);
+            return set.isEmpty() ? null : set;
+        });
     }
 
     @Override
-    public void afterConnectionClosed(WebSocketSession session, org.springframework.web.socket.CloseStatus status) {
-        sessions.remove(session);
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        SessionSender sender = sessions.remove(session.getId());
+        if (sender == null) {
+            return;
+        }
+        sender.discard();
+        if (sender.compact) {
+            compactSessions.decrementAndGet();
+        }
+        firehose.remove(sender);
+        Set<String> stockIds = subscriptions.remove(session.getId());
+        if (stockIds != null) {
+            for (String stockId : stockIds) {
+                removeSubscriber(stockId, sender);
+            }
+        }
     }
 
-    // Redis 업데이트 발생 시 모든 세션에 데이터 전송
+    /** 체결/호가 JSON을 해당 종목 구독 세션에 전송. 종목코드는 JSON 앞부분({"stockId":"...)에서 읽는다 */
     public void broadcastMessage(String message) {
-        sessions.forEach(session -> {
-            try {
-                session.sendMessage(new TextMessage(message));
-            } catch (Exception e) {
-                e.printStackTrace();
+        if (message.startsWith(STOCK_ID_PREFIX)) {
+            int end = message.indexOf('"', STOCK_ID_PREFIX.length());
+            if (end > 0) {
+                broadcast(message.substring(STOCK_ID_PREFIX.length(), end), message);
+                return;
             }
-        });
+        }
+        // 종목과 무관한 메시지는 모든 세션에
+        SessionSender.Push push = new SessionSender.Push(new TextMessage(message), null);
+        sessions.values().forEach(sender -> sender.offer(message, push));
+    }
+
+    /** 종목을 구독한 세션과 전 종목 세션의 송신 큐에 넣는다. 프레임은 한 번만 만들어 공유하고, 전송을 기다리지 않는다 */
+    public void broadcast(String stockId, String message) {
+        Set<SessionSender> interested = subscribers.get(stockId);
+        if ((interested == null || interested.isEmpty()) && firehose.isEmpty()) {
+            return;
+        }
+        String conflationKey = conflationKey(stockId, message);
+        String[] tickValues = compactSessions.get() > 0 ? CompactTickCodec.parse(message) : null;
+        SessionSender.Push push = new SessionSender.Push(new TextMessage(message), tickValues);
+        if (interested != null) {
+            interested.forEach(sender -> sender.offer(conflationKey, push));
+        }
+        firehose.forEach(sender -> sender.offer(conflationKey, push));
+    }
+
+    /** 밀린 세션에서 최신 값만 남길 단위. 체결과 호가는 브라우저에서 서로 다른 필드를 채우므로 따로 남긴다 */
+    static String conflationKey(String stockId, String message) {
+        int fieldStart = STOCK_ID_PREFIX.length() + stockId.length() + 2;
+        return message.startsWith(ORDER_BOOK_FIELD, fieldStart) ? stockId + ORDER_BOOK_FIELD : stockId;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,137 @@
+package com.example.backend.websocket;
+
+import com.example.backend.config.KafkaTopicConfig;
+import com.example.backend.dto.Tick;
+import com.example.backend.service.KafkaProducerService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * KIS 체결 → Kafka 사이의 종목별 conflation 단계 (kis.conflation.enabled=true일 때만).
+ *
+ * 종목마다 슬롯 하나에 마지막 체결만 남기고 intervalMs마다 한 번 Kafka로 보낸다.
+ * 그 사이 들어온 체결의 체결 거래량(CNTG_VOL)은 합산하고, 누적 거래량/가격 등은 마지막 값을 쓴다.
+ * 슬롯 갱신은 CAS로만 하므로 여러 세션의 리더 스레드가 락 없이 동시에 넣을 수 있다.
+ *
+ * 모든 체결이 필요한 컨슈머를 위해 kis.conflation.raw-topic을 지정하면 conflation 전 체결도 그대로 보낸다.
+ * 비활성이면 모든 체결을 바로 실시간 토픽으로 보낸다.
+ */
+@Slf4j
+@Component
+public class TickConflator {
+
+    private final KafkaProducerService kafkaProducerService;
+    private final String realtimeTopic;
+    private final String rawTopic;
+    private final boolean enabled;
+    private final long intervalMs;
+
+    private final Map<String, AtomicReference<Pending>> slots = new ConcurrentHashMap<>();
+    private ScheduledExecutorService flusher;
+
+    private final Counter offeredCounter;
+    private final Counter publishedCounter;
+
+    @Autowired
+    public TickConflator(KafkaProducerService kafkaProducerService,
+                         MeterRegistry meterRegistry,
+                         @Value(KafkaTopicConfig.REALTIME_TOPIC) String realtimeTopic,
+                         @Value("${kis.conflation.raw-topic:}") String rawTopic,
+                         @Value("${kis.conflation.enabled:false}") boolean enabled,
+                         @Value("${kis.conflation.interval-ms:100}") long intervalMs) {
+        this.kafkaProducerService = kafkaProducerService;
+        this.realtimeTopic = realtimeTopic;
+        this.rawTopic = rawTopic;
+        this.enabled = enabled;
+        this.intervalMs = intervalMs;
+        this.offeredCounter = meterRegistry.counter("kis.conflation.offered");
+        this.publishedCounter = meterRegistry.counter("kis.conflation.published");
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "kis-conflation");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleAtFixedRate(this::flush, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        log.info("[LOG] 체결 conflation 사용: {}ms 간격, 원본 토픽={}", intervalMs, rawTopic.isBlank() ? "없음" : rawTopic);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (flusher != null) {
+            flusher.shutdown();
+            flush(); // 남은 마지막 체결은 보내고 종료
+        }
+    }
+
+    /** 체결 하나를 전달. 여러 리더 스레드에서 동시에 호출된다 */
+    public void publish(Tick tick) {
+        if (!enabled) {
+            kafkaProducerService.sendTick(realtimeTopic, tick);
+            return;
+        }
+        if (!rawTopic.isBlank()) {
+            kafkaProducerService.sendTick(rawTopic, tick);
+        }
+        offeredCounter.increment();
+
+        AtomicReference<Pending> slot = slots.computeIfAbsent(tick.getStockId(), k -> new AtomicReference<>());
+        long volume = tick.getTransactionVolume();
+        Pending previous;
+        Pending next;
+        do {
+            previous = slot.get();
+            next = new Pending(tick, previous == null ? volume : previous.volume + volume);
+        } while (!slot.compareAndSet(previous, next));
+    }
+
+    // 스케줄러가 intervalMs마다 부른다 (테스트는 직접 부른다)
+    void flush() {
+        try {
+            for (AtomicReference<Pending> slot : slots.values()) {
+                Pending pending = slot.getAndSet(null);
+                if (pending == null) {
+                    continue;
+                }
+                Tick tick = pending.volume == pending.latest.getTransactionVolume()
+                        ? pending.latest
+                        : pending.latest.withTransactionVolume(pending.volume);
+                kafkaProducerService.sendTick(realtimeTopic, tick);
+                publishedCounter.increment();
+            }
+        } catch (Exception e) {
+            // 예외가 나가면 scheduleAtFixedRate가 멈추므로 여기서 끊는다
+            log.error("[ERROR] conflation flush 실패: ", e);
+        }
+    }
+
+    /** 마지막 체결과, 이전 flush 이후 체결 거래량 합 */
+    private static final class Pending {
+        final Tick latest;
+        final long volume;
+
+        Pending(Tick latest, long volume) {
+            this.latest = latest;
+            this.volume = volume;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.backend.dto;
+
+import com.example.backend.websocket.KisFrameParser;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderBookTest {
+
+    private final KisFrameParser parser = new KisFrameParser(OrderBook.FIELD_COUNT);
+
+    @Test
+    void readsEveryH0STASP0Offset() {
+        OrderBook book = OrderBook.parse(String.join("^", record()));
+
+        assertEquals("005930", book.getStockId());
+        assertEquals(93354, book.getTime());
+        for (int level = 0; level < OrderBook.DEPTH; level++) {
+            assertEquals(72000 + level * 100, book.getAskPrice(level));
+            assertEquals(71900 - level * 100, book.getBidPrice(level));
+            assertEquals(1000 + level, book.getAskQuantity(level));
+            assertEquals(2000 + level, book.getBidQuantity(level));
+        }
+        assertEquals(50000L, book.getTotalAskQuantity());
+        assertEquals(60000L, book.getTotalBidQuantity());
+        assertEquals(71950, book.getExpectedPrice());
+        assertEquals(777L, book.getExpectedQuantity());
+        assertEquals(3052507L, book.getAccumulatedVolume());
+    }
+
+    @Test
+    void reportsChangeOnlyForQuotesAndExpectedFill() {
+        String[] fields = record();
+        OrderBook book = new OrderBook("005930");
+
+        assertTrue(update(book, fields));
+        assertFalse(update(book, fields));
+
+        // 시각과 누적거래량만 바뀌면 값은 갱신하지만 변경으로 보지 않는다
+        fields[1] = "093355";
+        fields[53] = "3052600";
+        assertFalse(update(book, fields));
+        assertEquals(93355, book.getTime());
+        assertEquals(3052600L, book.getAccumulatedVolume());
+
+        fields[42] = "1";     // BIDP_RSQN10
+        assertTrue(update(book, fields));
+        assertEquals(1L, book.getBidQuantity(9));
+
+        fields[44] = "60001"; // TOTAL_BIDP_RSQN
+        assertTrue(update(book, fields));
+        fields[47] = "72000"; // ANTC_CNPR
+        assertTrue(update(book, fields));
+        fields[48] = "778";   // ANTC_CNQN
+        assertTrue(update(book, fields));
+
+        // 호가창에 쓰지 않는 필드(시간외 잔량 등)는 변경이 아니다
+        fields[45] = "1";
+        fields[58] = "1";
+        assertFalse(update(book, fields));
+    }
+
+    @Test
+    void rejectsRecordWithDifferentFieldCount() {
+        KisFrameParser tickParser = new KisFrameParser(46);
+        tickParser.parseRecord(String.join("^", Arrays.copyOf(record(), 46)));
+
+        assertThrows(IllegalArgumentException.class, () -> new OrderBook("005930").update(tickParser));
+    }
+
+    private boolean update(OrderBook book, String[] fields) {
+        return book.update(parser.parseRecord(String.join("^", fields)));
+    }
+
+    /** 필드마다 위치를 알 수 있는 값을 넣은 H0STASP0 레코드 */
+    private static String[] record() {
+        String[] fields = new String[OrderBook.FIELD_COUNT];
+        for (int i = 0; i < fields.length; i++) {
+            fields[i] = String.valueOf(900000 + i);
+        }
+        fields[0] = "005930";
+        fields[1] = "093354";
+        fields[2] = "0";
+        for (int level = 0; level < OrderBook.DEPTH; level++) {
+            fields[3 + level] = String.valueOf(72000 + level * 100);
+            fields[13 + level] = String.valueOf(71900 - level * 100);
+            fields[23 + level] = String.valueOf(1000 + level);
+            fields[33 + level] = String.valueOf(2000 + level);
+        }
+        fields[43] = "50000";
+        fields[44] = "60000";
+        fields[47] = "71950";
+        fields[48] = "777";
+        fields[53] = "3052507";
+        return fields;
+    }
+}
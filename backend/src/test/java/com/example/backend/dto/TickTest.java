@@ -0,0 +1,75 @@
+package com.example.backend.dto;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TickTest {
+
+    private static final String RECORD = "005930^093354^71900^5^-100^-0.14^72023.83^72100^72400^71700^71900^71800^1^3052507^219853241700^5105^6937^1832^84.90^1366314^1159996^1^0.39^20.28^090020^5^-200^090820^5^-500^092619^2^200^20230612^20^N^65945^216924^1118750^2199206^0.05^2424142^125.92^0^^72100";
+
+    @Test
+    void parsesAllFieldsAsPrimitives() {
+        Tick tick = Tick.parse(RECORD);
+
+        assertEquals("005930", tick.getStockId());
+        assertEquals(93354, tick.getTradingTime());
+        assertEquals(71900, tick.getCurrentPrice());
+        assertEquals('5', tick.getFluctuationSign());
+        assertEquals(-100, tick.getFluctuationPrice());
+        assertEquals(-14, tick.getFluctuationRate());
+        assertEquals(7202383L, tick.getWeightedAveragePrice());
+        assertEquals(71900, tick.getAskPrice());
+        assertEquals(71800, tick.getBidPrice());
+        assertEquals(3052507L, tick.getAccumulatedVolume());
+        assertEquals(219853241700L, tick.get(TickField.ACML_TR_PBMN));
+        assertEquals(20230612L, tick.get(TickField.BSOP_DATE));
+        assertEquals(0L, tick.get(TickField.MRKT_TRTM_CLS_CODE));
+        assertEquals(72100L, tick.get(TickField.VI_STND_PRC));
+    }
+
+    @Test
+    void formatsValuesLikeKisRecord() {
+        Tick tick = Tick.parse(RECORD);
+        StringBuilder sb = new StringBuilder();
+        for (TickField field : TickField.values()) {
+            if (field.ordinal() > 0) {
+                sb.append('^');
+            }
+            tick.appendValue(field, sb);
+        }
+
+        assertEquals(RECORD, sb.toString());
+    }
+
+    @Test
+    void keepsLegacyJsonKeys() {
+        String json = Tick.parse(RECORD).toJson();
+
+        assertTrue(json.startsWith("{\"stockId\":\"005930\",\"currentPrice\":\"71900\",\"fluctuationPrice\":\"-100\","
+                + "\"fluctuationRate\":\"-0.14\",\"fluctuationSign\":\"5\",\"transactionVolume\":\"1\",\"tradingTime\":\"093354\""), json);
+        assertTrue(json.contains("\"weightedAveragePrice\":\"72023.83\""), json);
+    }
+
+    @Test
+    void tradeTimeIsBusinessDateAndTradingTimeInKst() {
+        // 2023-06-12 09:33:54 KST
+        assertEquals(1686530034000L, Tick.parse(RECORD).getTradeEpochMillis());
+    }
+
+    @Test
+    void equalTicksCompareEqual() {
+        assertEquals(Tick.parse(RECORD), Tick.parse(RECORD));
+        assertNotEquals(Tick.parse(RECORD), Tick.parse(RECORD.replace("^71900^5^", "^72000^5^")));
+    }
+
+    @Test
+    void roundTripsThroughBinaryCodec() {
+        Tick tick = Tick.parse(RECORD);
+        byte[] encoded = TickCodec.encode(tick);
+
+        assertEquals(TickCodec.SIZE, encoded.length);
+        assertEquals(tick, TickCodec.decode(encoded));
+        assertThrows(IllegalArgumentException.class, () -> TickCodec.decode(RECORD.getBytes()));
+    }
+}
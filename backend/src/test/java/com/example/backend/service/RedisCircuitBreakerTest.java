@@ -0,0 +1,76 @@
+package com.example.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RedisCircuitBreakerTest {
+
+    private static final long OPEN_NANOS = 5_000_000_000L;
+
+    private final AtomicLong now = new AtomicLong(1_000L);
+    private final RedisCircuitBreaker breaker = new RedisCircuitBreaker(3, OPEN_NANOS, now::get);
+
+    @Test
+    void opensAfterConsecutiveFailuresAndRejectsWithoutCallingRedis() {
+        breaker.recordFailure();
+        breaker.recordFailure();
+        assertTrue(breaker.allowRequest());
+
+        breaker.recordFailure();
+
+        assertTrue(breaker.isOpen());
+        assertFalse(breaker.allowRequest());
+        now.addAndGet(OPEN_NANOS - 1);
+        assertFalse(breaker.allowRequest());
+    }
+
+    @Test
+    void successResetsTheFailureCount() {
+        breaker.recordFailure();
+        breaker.recordFailure();
+        breaker.recordSuccess();
+        breaker.recordFailure();
+        breaker.recordFailure();
+
+        assertFalse(breaker.isOpen());
+    }
+
+    @Test
+    void letsOneProbeThroughAfterTheOpenWindowAndClosesOnSuccess() {
+        tripOpen();
+        now.addAndGet(OPEN_NANOS);
+
+        assertTrue(breaker.allowRequest());
+        assertFalse(breaker.allowRequest(), "probe 진행 중에는 다른 호출을 막는다");
+
+        breaker.recordSuccess();
+
+        assertFalse(breaker.isOpen());
+        assertTrue(breaker.allowRequest());
+        assertTrue(breaker.allowRequest());
+    }
+
+    @Test
+    void failedProbeReopensForAnotherWindow() {
+        tripOpen();
+        now.addAndGet(OPEN_NANOS);
+        assertTrue(breaker.allowRequest());
+
+        breaker.recordFailure();
+
+        assertTrue(breaker.isOpen());
+        assertFalse(breaker.allowRequest());
+        now.addAndGet(OPEN_NANOS);
+        assertTrue(breaker.allowRequest());
+    }
+
+    private void tripOpen() {
+        for (int i = 0; i < 3; i++) {
+            breaker.recordFailure();
+        }
+        assertTrue(breaker.isOpen());
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.backend.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.ZSetOperations;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TickHistoryStoreMergeTest {
+
+    @Test
+    void mergesOldestFirstWithLateTickBeforeEntryOfTheSameTime() {
+        List<MapRecord<String, Object, Object>> records = List.of(entry(1000, 0, "e1000"), entry(3000, 0, "e3000"));
+        Set<ZSetOperations.TypedTuple<String>> late = late(2000, "l2000", 3000, "l3000");
+
+        assertEquals(List.of("e1000", "l2000", "l3000", "e3000"), TickHistoryStore.merge(records, late, 10, false));
+    }
+
+    @Test
+    void mergesNewestFirstWithLateTickAfterEntryOfTheSameTime() {
+        List<MapRecord<String, Object, Object>> records = List.of(entry(3000, 1, "e3000-1"), entry(3000, 0, "e3000-0"),
+                entry(1000, 0, "e1000"));
+        Set<ZSetOperations.TypedTuple<String>> late = late(3000, "l3000", 2000, "l2000");
+
+        assertEquals(List.of("e3000-1", "e3000-0", "l3000", "l2000", "e1000"),
+                TickHistoryStore.merge(records, late, 10, true));
+    }
+
+    @Test
+    void stopsAtCount() {
+        List<MapRecord<String, Object, Object>> records = List.of(entry(1000, 0, "e1000"), entry(3000, 0, "e3000"));
+        Set<ZSetOperations.TypedTuple<String>> late = late(2000, "l2000");
+
+        assertEquals(List.of("e1000", "l2000"), TickHistoryStore.merge(records, late, 2, false));
+        assertEquals(List.of(), TickHistoryStore.merge(records, late, 0, false));
+    }
+
+    @Test
+    void readsEitherSideAlone() {
+        List<MapRecord<String, Object, Object>> records = List.of(entry(1000, 0, "e1000"), entry(3000, 0, "e3000"));
+
+        assertEquals(List.of("e1000", "e3000"), TickHistoryStore.merge(records, null, 10, false));
+        assertEquals(List.of("l2000"), TickHistoryStore.merge(null, late(2000, "l2000"), 10, true));
+        assertEquals(List.of(), TickHistoryStore.merge(List.of(), Set.of(), 10, true));
+    }
+
+    private static MapRecord<String, Object, Object> entry(long millis, long sequence, String json) {
+        return StreamRecords.newRecord()
+                .in(TickHistoryStore.STREAM_KEY_PREFIX + "005930")
+                .withId(RecordId.of(millis, sequence))
+                .ofMap(Map.<Object, Object>of("d", json, "v", "1"));
+    }
+
+    /** (체결 시각, JSON) 쌍을 주어진 순서 그대로 */
+    private static Set<ZSetOperations.TypedTuple<String>> late(Object... scoreAndValue) {
+        Set<ZSetOperations.TypedTuple<String>> late = new LinkedHashSet<>();
+        for (int i = 0; i < scoreAndValue.length; i += 2) {
+            late.add(new DefaultTypedTuple<>((String) scoreAndValue[i + 1], ((Number) scoreAndValue[i]).doubleValue()));
+        }
+        return late;
+    }
+}
@@ -0,0 +1,204 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.Tick;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 체결 저장 Lua 스크립트의 추가/중복/지연 판정을 실제 Redis에서 확인한다.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class TickHistoryStoreTest {
+
+    @Container
+    private static final GenericContainer<?> REDIS =
+            new GenericContainer<>(DockerImageName.parse("redis:7.2-alpine")).withExposedPorts(6379);
+
+    private static final String RECORD = "005930^093354^71900^5^-100^-0.14^72023.83^72100^72400^71700^71900^71800^1^3052507^219853241700^5105^6937^1832^84.90^1366314^1159996^1^0.39^20.28^090020^5^-200^090820^5^-500^092619^2^200^20230612^20^N^65945^216924^1118750^2199206^0.05^2424142^125.92^0^^72100";
+    private static final String KEY = TickHistoryStore.KEY_PREFIX + "005930";
+    private static final String STREAM_KEY = TickHistoryStore.STREAM_KEY_PREFIX + "005930";
+    private static final String LATE_KEY = TickHistoryStore.LATE_KEY_PREFIX + "005930";
+
+    private LettuceConnectionFactory connectionFactory;
+    private RedisTemplate<String, String> redisTemplate;
+
+    @BeforeEach
+    void connect() {
+        connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(REDIS.getHost(), REDIS.getMappedPort(6379)));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+
+        redisTemplate = new RedisTemplate<>();
+        redisTemplate.setConnectionFactory(connectionFactory);
+        StringRedisSerializer serializer = new StringRedisSerializer();
+        redisTemplate.setKeySerializer(serializer);
+        redisTemplate.setHashKeySerializer(serializer);
+        redisTemplate.setValueSerializer(serializer);
+        redisTemplate.setHashValueSerializer(serializer);
+        redisTemplate.afterPropertiesSet();
+
+        redisTemplate.execute((RedisCallback<Object>) connection -> {
+            connection.serverCommands().flushAll();
+            connection.scriptingCommands().scriptFlush();
+            return null;
+        });
+    }
+
+    @AfterEach
+    void disconnect() {
+        connectionFactory.destroy();
+    }
+
+    @Test
+    void loadsScriptOnStartup() {
+        TickHistoryStore store = store("list");
+        String sha = RedisScript.of(TickHistoryStore.APPEND_LIST_SCRIPT).getSha1();
+        assertEquals(List.of(false), scriptExists(sha));
+
+        store.loadScript();
+
+        assertEquals(List.of(true), scriptExists(sha));
+    }
+
+    @Test
+    void listKeepsOnlyTicksNewerThanTheLastStored() {
+        TickHistoryStore store = store("list");
+        Tick first = tick("093354", 100, 71900);
+        Tick second = tick("093355", 200, 72000);
+
+        assertEquals(Map.of(KEY, List.of(first, second)), store.append(Map.of(KEY, List.of(first, second))));
+
+        // 이미 저장된 체결(중복)과 그보다 오래된 체결(복구 토픽)은 버리고 새 체결만 붙인다
+        Tick older = tick("093353", 50, 71800);
+        Tick third = tick("093356", 300, 72100);
+        assertEquals(Map.of(KEY, List.of(third)), store.append(Map.of(KEY, List.of(older, second, third))));
+        assertEquals(Map.of(), store.append(Map.of(KEY, List.of(third))));
+
+        assertEquals(List.of(third.toJson(), second.toJson(), first.toJson()), store.latest("005930", 5));
+        assertEquals("1686530036000:300", redisTemplate.opsForValue().get(TickHistoryStore.ORDER_KEY_PREFIX + "005930"));
+        assertTrue(redisTemplate.getExpire(KEY) > 0);
+        assertTrue(redisTemplate.getExpire(TickHistoryStore.ORDER_KEY_PREFIX + "005930") > 0);
+    }
+
+    @Test
+    void listOrdersTicksOfTheSameSecondByAccumulatedVolume() {
+        TickHistoryStore store = store("list");
+        Tick first = tick("093354", 100, 71900);
+        Tick more = tick("093354", 150, 72000);
+        Tick less = tick("093354", 120, 71800);
+
+        assertEquals(Map.of(KEY, List.of(first, more)), store.append(Map.of(KEY, List.of(first, more, less))));
+        assertEquals(List.of(more.toJson(), first.toJson()), store.latest("005930", 5));
+    }
+
+    @Test
+    void listTrimsToHistorySize() {
+        TickHistoryStore store = store("list");
+        List<Tick> ticks = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            ticks.add(tick(String.format("0933%02d", i), 100 + i, 71900 + i * 100));
+        }
+
+        assertEquals(7, store.append(Map.of(KEY, ticks)).get(KEY).size());
+
+        List<String> latest = store.latest("005930", 5);
+        assertEquals(TickHistoryStore.HISTORY_SIZE, latest.size());
+        assertEquals(ticks.get(6).toJson(), latest.get(0));
+        assertEquals(ticks.get(2).toJson(), latest.get(4));
+    }
+
+    @Test
+    void reloadsScriptAfterRedisLosesIt() {
+        TickHistoryStore store = store("list");
+        store.loadScript();
+        // Redis 재시작이나 장애 조치로 스크립트 캐시가 빈 상황
+        redisTemplate.execute((RedisCallback<Object>) connection -> {
+            connection.scriptingCommands().scriptFlush();
+            return null;
+        });
+
+        Tick tick = tick("093354", 100, 71900);
+        assertEquals(Map.of(KEY, List.of(tick)), store.append(Map.of(KEY, List.of(tick))));
+        assertEquals(List.of(tick.toJson()), store.latest("005930", 5));
+    }
+
+    @Test
+    void streamAddsNewTicksUnderTradeTimeIds() {
+        TickHistoryStore store = store("stream");
+        Tick first = tick("093354", 100, 71900);
+        Tick sameSecond = tick("093354", 150, 72000);
+        Tick next = tick("093355", 200, 72100);
+
+        assertEquals(Map.of(KEY, List.of(first, sameSecond, next)),
+                store.append(Map.of(KEY, List.of(first, sameSecond, next))));
+
+        List<MapRecord<String, Object, Object>> records = redisTemplate.opsForStream().range(STREAM_KEY, Range.unbounded());
+        assertEquals(List.of("1686530034000-0", "1686530034000-1", "1686530035000-0"),
+                records.stream().map(record -> record.getId().getValue()).toList());
+        assertEquals(sameSecond.toJson(), records.get(1).getValue().get("d"));
+        assertEquals("150", records.get(1).getValue().get("v"));
+        assertTrue(redisTemplate.getExpire(STREAM_KEY) > 0);
+        assertFalse(redisTemplate.hasKey(LATE_KEY));
+    }
+
+    @Test
+    void streamKeepsLateTicksAsideAndDropsDuplicates() {
+        TickHistoryStore store = store("stream");
+        Tick first = tick("093354", 100, 71900);
+        Tick last = tick("093356", 300, 72100);
+        store.append(Map.of(KEY, List.of(first, last)));
+
+        // 마지막 엔트리보다 오래된 체결은 최신으로 돌려주지 않고 late sorted set에 체결 시각으로 넣는다
+        Tick late = tick("093355", 200, 72000);
+        assertEquals(Map.of(), store.append(Map.of(KEY, List.of(late))));
+        assertEquals(1686530035000.0, redisTemplate.opsForZSet().score(LATE_KEY, late.toJson()));
+
+        // 이미 스트림에 있는 체결과 이미 late에 있는 체결은 중복으로 버린다
+        assertEquals(Map.of(), store.append(Map.of(KEY, List.of(first, late, last))));
+        assertEquals(1L, redisTemplate.opsForZSet().zCard(LATE_KEY));
+        assertEquals(2L, redisTemplate.opsForStream().size(STREAM_KEY));
+        assertTrue(redisTemplate.getExpire(LATE_KEY) > 0);
+
+        assertEquals(List.of(first.toJson(), late.toJson(), last.toJson()),
+                store.range("005930", null, null, 10, false));
+        assertEquals(List.of(last.toJson(), late.toJson(), first.toJson()), store.latest("005930", 10));
+        assertEquals(List.of(late.toJson()), store.range("005930", 1686530035000L, 1686530035999L, 10, true));
+    }
+
+    private TickHistoryStore store(String mode) {
+        return new TickHistoryStore(redisTemplate, mode, 100);
+    }
+
+    private List<Boolean> scriptExists(String sha) {
+        return redisTemplate.execute((RedisCallback<List<Boolean>>) connection -> connection.scriptingCommands().scriptExists(sha));
+    }
+
+    /** 2023-06-12 영업일의 체결 시각, 누적 거래량, 현재가만 바꾼 체결 */
+    private static Tick tick(String time, long accumulatedVolume, int price) {
+        String[] fields = RECORD.split("\\^", -1);
+        fields[1] = time;
+        fields[2] = String.valueOf(price);
+        fields[13] = String.valueOf(accumulatedVolume);
+        return Tick.parse(String.join("^", fields));
+    }
+}
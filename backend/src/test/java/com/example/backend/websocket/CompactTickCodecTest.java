@@ -0,0 +1,49 @@
+package com.example.backend.websocket;
+
+import com.example.backend.dto.OrderBook;
+import com.example.backend.dto.Tick;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactTickCodecTest {
+
+    private static final String RECORD = "005930^093354^71900^5^-100^-0.14^72023.83^72100^72400^71700^71900^71800^1^3052507^219853241700^5105^6937^1832^84.90^1366314^1159996^1^0.39^20.28^090020^5^-200^090820^5^-500^092619^2^200^20230612^20^N^65945^216924^1118750^2199206^0.05^2424142^125.92^0^^72100";
+
+    @Test
+    void parsesEveryFieldOfTickJson() {
+        String[] values = CompactTickCodec.parse(Tick.parse(RECORD).toJson());
+
+        assertNotNull(values);
+        for (int i = 0; i < values.length; i++) {
+            assertNotNull(values[i], CompactTickCodec.FIELDS[i]);
+        }
+        assertEquals("005930", values[0]);
+        assertEquals("71900", values[2]);
+        assertEquals("-0.14", values[5]);
+    }
+
+    @Test
+    void sendsOnlyChangedFieldsAfterFirstMessage() {
+        String[] last = new String[CompactTickCodec.FIELDS.length];
+        Tick first = Tick.parse(RECORD);
+        Tick second = Tick.parse(RECORD.replace("^71900^5^-100^", "^72000^2^100^"));
+
+        String full = CompactTickCodec.encodeDelta(CompactTickCodec.parse(first.toJson()), last);
+        String delta = CompactTickCodec.encodeDelta(CompactTickCodec.parse(second.toJson()), last);
+
+        assertTrue(full.startsWith("{\"s\":\"005930\",\"t\":\"093354\",\"p\":\"71900\",\"g\":\"5\",\"c\":\"-100\""));
+        assertEquals("{\"s\":\"005930\",\"p\":\"72000\",\"g\":\"2\",\"c\":\"100\"}", delta);
+        assertNull(CompactTickCodec.encodeDelta(CompactTickCodec.parse(second.toJson()), last));
+    }
+
+    @Test
+    void leavesOrderBookAndUnknownMessagesToFullJson() {
+        String orderBook = new OrderBook("005930").toJson();
+
+        assertNull(CompactTickCodec.parse(orderBook));
+        assertNull(CompactTickCodec.parse("{\"stockId\":\"005930\",\"unknown\":\"1\"}"));
+        assertNull(CompactTickCodec.parse("{\"currentPrice\":\"71900\"}"));
+        assertNull(CompactTickCodec.parse("not json"));
+    }
+}
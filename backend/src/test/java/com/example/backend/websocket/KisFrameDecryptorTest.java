@@ -0,0 +1,79 @@
+package com.example.backend.websocket;
+
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KisFrameDecryptorTest {
+
+    private static final String KEY = "dkxmuhvsoqlwnqzjclxdgxamsvbqjpsa";
+    private static final String IV = "qkpbfmxsyqcbtfwe";
+    // H0STCNI0(체결통보) 평문 레코드: 고객ID^계좌번호^주문번호^원주문번호^매도매수구분^정정구분^주문종류^주문조건^종목코드^체결수량^체결단가^체결시간^...
+    private static final String NOTICE = "hts0001^5012345601^0000012345^^02^0^00^0^005930^10^71900^093354^N^2^Y^00950^10^홍길동^삼성전자^0^^";
+
+    private final KisFrameDecryptor decryptor = new KisFrameDecryptor();
+
+    @Test
+    void decryptsWithKeyFromSubscribeResponse() throws Exception {
+        assertEquals("H0STCNI0", decryptor.registerFromResponse(subscribeResponse(KEY, IV)));
+
+        String frame = encryptedFrame(KEY, IV, NOTICE);
+        assertTrue(KisFrameDecryptor.isEncrypted(frame));
+        assertEquals("0|H0STCNI0|001|" + NOTICE, decryptor.decrypt(frame));
+        // doFinal 후 같은 Cipher를 다시 써도 된다
+        assertEquals("0|H0STCNI0|001|" + NOTICE, decryptor.decrypt(frame));
+    }
+
+    @Test
+    void ignoresResponsesWithoutKey() {
+        assertNull(decryptor.registerFromResponse(
+                "{\"header\":{\"tr_id\":\"H0STCNT0\",\"tr_key\":\"005930\",\"encrypt\":\"N\"},"
+                        + "\"body\":{\"rt_cd\":\"0\",\"msg_cd\":\"OPSP0000\",\"msg1\":\"SUBSCRIBE SUCCESS\"}}"));
+        assertNull(decryptor.registerFromResponse("{\"header\":{\"tr_id\":\"PINGPONG\",\"datetime\":\"20261019093354\"}}"));
+    }
+
+    @Test
+    void rejectsFrameBeforeKeyIsRegistered() throws Exception {
+        String frame = encryptedFrame(KEY, IV, NOTICE);
+
+        assertThrows(IllegalStateException.class, () -> decryptor.decrypt(frame));
+        assertThrows(IllegalArgumentException.class, () -> decryptor.decrypt("1|H0STCNI0"));
+    }
+
+    @Test
+    void reinitialisesCachedCipherWhenKeyChanges() throws Exception {
+        decryptor.registerFromResponse(subscribeResponse(KEY, IV));
+        assertEquals("0|H0STCNI0|001|" + NOTICE, decryptor.decrypt(encryptedFrame(KEY, IV, NOTICE)));
+
+        // 재접속 후 재구독하면 새 키가 내려온다. 이 스레드에 캐시된 Cipher도 새 키로 다시 init 되어야 한다
+        String newKey = "zqvbnmhgfdsapoiuytrewqlkjhgfdsaz";
+        String newIv = "mnbvcxzlkjhgfdsa";
+        decryptor.registerFromResponse(subscribeResponse(newKey, newIv));
+        assertEquals("0|H0STCNI0|001|" + NOTICE, decryptor.decrypt(encryptedFrame(newKey, newIv, NOTICE)));
+
+        // 같은 키가 다시 오면 그대로 쓴다
+        decryptor.registerFromResponse(subscribeResponse(newKey, newIv));
+        assertEquals("0|H0STCNI0|001|" + NOTICE, decryptor.decrypt(encryptedFrame(newKey, newIv, NOTICE)));
+    }
+
+    private static String subscribeResponse(String key, String iv) {
+        return "{\"header\":{\"tr_id\":\"H0STCNI0\",\"tr_key\":\"hts0001\",\"encrypt\":\"N\"},"
+                + "\"body\":{\"rt_cd\":\"0\",\"msg_cd\":\"OPSP0000\",\"msg1\":\"SUBSCRIBE SUCCESS\","
+                + "\"output\":{\"iv\":\"" + iv + "\",\"key\":\"" + key + "\"}}}";
+    }
+
+    /** KIS가 보내는 형태({@code 1|TR_ID|데이터건수|base64(AES-256-CBC)})로 암호화한다 */
+    private static String encryptedFrame(String key, String iv, String record) throws Exception {
+        Cipher cipher = Cipher.getInstance("AES/CBC/PKCS5Padding");
+        cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(key.getBytes(StandardCharsets.UTF_8), "AES"),
+                new IvParameterSpec(iv.getBytes(StandardCharsets.UTF_8)));
+        byte[] encrypted = cipher.doFinal(record.getBytes(StandardCharsets.UTF_8));
+        return "1|H0STCNI0|001|" + Base64.getEncoder().encodeToString(encrypted);
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.backend.websocket;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KisFrameJournalTest {
+
+    private static final ZoneId KST = ZoneId.of("Asia/Seoul");
+    private static final LocalDate DAY = LocalDate.of(2026, 10, 19);
+    private static final int SEGMENT_SIZE = 16 * 1024;
+
+    @TempDir
+    Path directory;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AtomicLong now = new AtomicLong(millis(DAY.atTime(12, 0)));
+    private KisFrameJournal journal;
+
+    @AfterEach
+    void shutdown() {
+        if (journal != null) {
+            journal.shutdown();
+        }
+    }
+
+    @Test
+    void readsBackAsciiAndNonAsciiFramesInOrder() throws Exception {
+        start();
+        String ascii = "0|H0STCNT0|001|005930^093354^71900^5^-100";
+        String korean = "{\"header\":{\"tr_id\":\"H0STCNT0\"},\"body\":{\"msg1\":\"SUBSCRIBE SUCCESS 구독 성공\"}}";
+
+        journal.append(ascii);
+        now.addAndGet(5);
+        journal.append(korean);
+        journal.append("x");
+
+        List<String> frames = new ArrayList<>();
+        List<Long> times = new ArrayList<>();
+        try (KisFrameJournalReader reader = KisFrameJournalReader.open(segment(DAY, 0))) {
+            while (reader.next()) {
+                frames.add(reader.frame());
+                times.add(reader.receivedAtMillis());
+            }
+        }
+        assertEquals(List.of(ascii, korean, "x"), frames);
+        long start = millis(DAY.atTime(12, 0));
+        assertEquals(List.of(start, start + 5, start + 5), times);
+        assertEquals(3.0, registry.counter("kis.journal.frames").count());
+    }
+
+    @Test
+    void rollsFullSegmentIntoPreparedOne() throws Exception {
+        start();
+        String payload = "0|H0STCNT0|001|" + "9".repeat(1000) + "^";
+        List<String> written = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            awaitPrepared(DAY);
+            String frame = payload + i;
+            journal.append(frame);
+            written.add(frame);
+        }
+
+        assertEquals(0.0, registry.counter("kis.journal.dropped").count());
+        assertTrue(Files.exists(segment(DAY, 2)), "16KB 세그먼트에 1KB 프레임 40개면 세 번째 세그먼트까지 쓴다");
+        // 마지막 교체 뒤 준비 중인 세그먼트까지 다 만들어진 다음 읽는다
+        awaitPrepared(DAY);
+        List<String> frames = new ArrayList<>();
+        for (int index = 0; Files.exists(segment(DAY, index)); index++) {
+            frames.addAll(read(DAY, index));
+        }
+        assertEquals(written, frames);
+    }
+
+    @Test
+    void movesToPreparedNextDaySegmentAtMidnight() throws Exception {
+        now.set(millis(DAY.atTime(23, 59, 59)));
+        start();
+        // 23:50 이후 기동이면 다음 날 첫 세그먼트를 바로 준비한다
+        awaitPrepared(DAY.plusDays(1));
+
+        journal.append("before midnight");
+        now.set(millis(DAY.plusDays(1).atStartOfDay()));
+        journal.append("after midnight");
+
+        assertEquals(0.0, registry.counter("kis.journal.dropped").count());
+        assertEquals(List.of("before midnight"), read(DAY, 0));
+        assertEquals(List.of("after midnight"), read(DAY.plusDays(1), 0));
+    }
+
+    @Test
+    void dropsInsteadOfBlockingWhenNoSegmentIsReadyForTheNewDay() throws Exception {
+        start();
+        journal.append("noon");
+
+        // 12시에 기동했으므로 다음 날 세그먼트는 아직 준비되지 않았다
+        now.set(millis(DAY.plusDays(1).atTime(0, 0, 1)));
+        journal.append("dropped");
+        assertEquals(1.0, registry.counter("kis.journal.dropped").count());
+
+        awaitPrepared(DAY.plusDays(1));
+        journal.append("next day");
+
+        assertEquals(List.of("noon"), read(DAY, 0));
+        assertEquals(List.of("next day"), read(DAY.plusDays(1), 0));
+    }
+
+    @Test
+    void readerStopsAtUnpublishedRecord() throws Exception {
+        start();
+        journal.append("first");
+        journal.append("second");
+        journal.append("third");
+
+        // 두 번째 레코드를 자리만 예약하고 아직 길이를 쓰지 않은 상태로 만든다
+        int second = KisFrameJournal.FILE_HEADER_SIZE + KisFrameJournal.align(KisFrameJournal.RECORD_HEADER_SIZE + "first".length());
+        try (RandomAccessFile file = new RandomAccessFile(segment(DAY, 0).toFile(), "rw")) {
+            file.seek(second);
+            file.write(new byte[4]);
+        }
+
+        assertEquals(List.of("first"), read(DAY, 0));
+    }
+
+    private void start() {
+        journal = new KisFrameJournal(registry, true, directory, SEGMENT_SIZE, now::get);
+        journal.start();
+        assertTrue(journal.isActive());
+    }
+
+    private void awaitPrepared(LocalDate day) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!journal.isPrepared(day)) {
+            assertTrue(System.nanoTime() < deadline, "세그먼트 준비 시간 초과: " + day);
+            Thread.sleep(1);
+        }
+    }
+
+    private List<String> read(LocalDate day, int index) throws IOException {
+        List<String> frames = new ArrayList<>();
+        try (KisFrameJournalReader reader = KisFrameJournalReader.open(segment(day, index))) {
+            while (reader.next()) {
+                frames.add(reader.frame());
+            }
+        }
+        return frames;
+    }
+
+    private Path segment(LocalDate day, int index) {
+        return directory.resolve(String.format("kis-%s-%03d.journal", day.format(DateTimeFormatter.BASIC_ISO_DATE), index));
+    }
+
+    private static long millis(LocalDateTime time) {
+        return time.atZone(KST).toInstant().toEpochMilli();
+    }
+}
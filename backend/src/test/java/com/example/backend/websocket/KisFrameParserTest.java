@@ -0,0 +1,79 @@
+package com.example.backend.websocket;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KisFrameParserTest {
+
+    // KisWebSocketClient에 주석으로 남아 있는 H0STCNT0 샘플 (2건)
+    private static final String SAMPLE_FRAME = "0|H0STCNT0|002|005930^093354^71900^5^-100^-0.14^72023.83^72100^72400^71700^71900^71800^1^3052507^219853241700^5105^6937^1832^84.90^1366314^1159996^1^0.39^20.28^090020^5^-200^090820^5^-500^092619^2^200^20230612^20^N^65945^216924^1118750^2199206^0.05^2424142^125.92^0^^72100^005930^093354^72000^5^+500^-0.14^72023.83^72100^72400^71700^71900^71800^1^3052507^219853241700^5105^6937^1832^84.90^1366314^1159996^1^0.39^20.28^090020^5^-200^090820^5^-500^092619^2^200^20230612^20^N^65945^216924^1118750^2199206^0.05^2424142^125.92^0^^72100";
+
+    private final KisFrameParser parser = new KisFrameParser(46);
+
+    @Test
+    void parsesHeaderAndEveryRecordOfSampleFrame() {
+        List<String> rows = new ArrayList<>();
+
+        int count = parser.parse(SAMPLE_FRAME, record -> {
+            assertFalse(record.isEncrypted());
+            assertTrue(record.isTrId("H0STCNT0"));
+            rows.add(record.text(0) + "," + record.intValue(2) + "," + record.charValue(3) + ","
+                    + record.intValue(4) + "," + record.fixedValue(5, 2) + "," + record.longValue(12) + ","
+                    + record.text(1));
+        });
+
+        assertEquals(2, count);
+        assertEquals(List.of(
+                "005930,71900,5,-100,-14,1,093354",
+                "005930,72000,5,500,-14,1,093354"), rows);
+    }
+
+    @Test
+    void readsWideAndDecimalFields() {
+        parser.parse(SAMPLE_FRAME, record -> {
+            assertEquals(7202383L, record.fixedValue(6, 2));   // WGHN_AVRG_STCK_PRC
+            assertEquals(219853241700L, record.longValue(14)); // ACML_TR_PBMN
+            assertEquals(8490L, record.fixedValue(18, 2));     // CTTR
+            assertEquals(20230612, record.intValue(33));       // BSOP_DATE
+            assertEquals('N', record.charValue(35));           // TRHT_YN
+            assertTrue(record.isEmpty(44));                    // MRKT_TRTM_CLS_CODE
+            assertEquals('\0', record.charValue(44));
+            assertEquals(72100, record.intValue(45));          // VI_STND_PRC
+        });
+    }
+
+    @Test
+    void fieldViewAndCopiesPointIntoFrame() {
+        parser.parse(SAMPLE_FRAME, record -> {
+            CharSequence code = record.field(0);
+            assertEquals(6, code.length());
+            assertEquals("005930", code.toString());
+            assertTrue(record.textEquals(0, "005930"));
+            assertFalse(record.textEquals(0, "000660"));
+            assertEquals("realtime-data-005930",
+                    record.appendTo(0, new StringBuilder("realtime-data-")).toString());
+            assertTrue(record.recordText().startsWith("005930^093354^"));
+            assertTrue(record.recordText().endsWith("^0^^72100"));
+        });
+    }
+
+    @Test
+    void ignoresControlMessages() {
+        String subscribeAck = "{\"header\":{\"tr_id\":\"H0STCNT0\",\"tr_key\":\"005930\",\"encrypt\":\"N\"},"
+                + "\"body\":{\"rt_cd\":\"0\",\"msg_cd\":\"OPSP0000\",\"msg1\":\"SUBSCRIBE SUCCESS\"}}";
+
+        assertEquals(-1, parser.parse(subscribeAck, record -> fail("no record expected")));
+        assertEquals(-1, parser.parse("", record -> fail("no record expected")));
+    }
+
+    @Test
+    void rejectsTruncatedFrame() {
+        String truncated = SAMPLE_FRAME.substring(0, SAMPLE_FRAME.lastIndexOf("^0^^72100"));
+
+        assertThrows(IllegalArgumentException.class, () -> parser.parse(truncated, record -> { }));
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.backend.websocket;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KisSessionAssignerTest {
+
+    private static final List<String> SESSIONS = List.of("s0", "s1", "s2", "s3");
+
+    private final List<String> events = new ArrayList<>();
+    private final Map<String, Integer> load = new HashMap<>();
+
+    @Test
+    void sameCodesAlwaysGiveSameMapping() {
+        KisSessionAssigner<String> first = new KisSessionAssigner<>(SESSIONS, 40);
+        KisSessionAssigner<String> second = new KisSessionAssigner<>(SESSIONS, 40);
+        SortedSet<String> codes = codes(0, 100);
+
+        rebalance(first, codes, 40);
+        load.clear();
+        // 다른 순서로 쌓아 온 인스턴스도 최종 집합이 같으면 배정이 같다
+        rebalance(second, codes(50, 100), 40);
+        rebalance(second, codes, 40);
+
+        for (String code : codes) {
+            assertEquals(first.sessionOf(code), second.sessionOf(code), code);
+        }
+        events.clear();
+        assertEquals(0, rebalance(second, codes, 40));
+        assertEquals(List.of(), events, "같은 집합으로 다시 배정하면 해제/등록이 없다");
+    }
+
+    @Test
+    void addingOrRemovingOneCodeMovesOnlyThatCode() {
+        KisSessionAssigner<String> assigner = new KisSessionAssigner<>(SESSIONS, 40);
+        SortedSet<String> codes = codes(0, 60);
+        rebalance(assigner, codes, 40);
+        Map<String, String> before = mapping(assigner, codes);
+        events.clear();
+
+        SortedSet<String> added = new TreeSet<>(codes);
+        added.add("000030A");
+        rebalance(assigner, added, 40);
+        assertEquals(List.of("subscribe " + assigner.sessionOf("000030A") + " 000030A"), events);
+        assertEquals(before, mapping(assigner, codes));
+        Map<String, String> afterAdd = mapping(assigner, added);
+        events.clear();
+
+        SortedSet<String> removed = new TreeSet<>(added);
+        removed.remove("000010");
+        rebalance(assigner, removed, 40);
+        assertEquals(List.of("unsubscribe " + before.get("000010") + " 000010"), events);
+        assertNull(assigner.sessionOf("000010"));
+        for (String code : removed) {
+            assertEquals(afterAdd.get(code), assigner.sessionOf(code), code);
+        }
+    }
+
+    @Test
+    void respectsCodesPerSessionAndCountsOverflow() {
+        KisSessionAssigner<String> assigner = new KisSessionAssigner<>(SESSIONS, 5);
+
+        assertEquals(3, rebalance(assigner, codes(0, 23), 5));
+
+        assertEquals(20, assigner.codes().size());
+        for (String session : SESSIONS) {
+            assertEquals(5, load.get(session), session);
+        }
+        // 자리가 나면 밀려났던 코드도 배정된다
+        assertEquals(0, rebalance(assigner, codes(3, 23), 5));
+        assertEquals(20, assigner.codes().size());
+    }
+
+    @Test
+    void unsubscribesMovedCodeBeforeSubscribingIntoItsSession() {
+        // 세션 2개 x 1종목. 뒤 순서 코드가 차지한 세션을 앞 순서 코드가 선호하면 뒤 코드가 다른 세션으로 옮겨간다
+        List<String> sessions = List.of("s0", "s1");
+        KisSessionAssigner<String> assigner = new KisSessionAssigner<>(sessions, 1);
+        String later = "999999";
+        rebalance(assigner, new TreeSet<>(List.of(later)), 1);
+        String taken = assigner.sessionOf(later);
+        String earlier = codePreferring(sessions.indexOf(taken), sessions.size());
+        events.clear();
+
+        assertEquals(0, rebalance(assigner, new TreeSet<>(List.of(earlier, later)), 1));
+
+        String other = sessions.get(1 - sessions.indexOf(taken));
+        assertEquals(taken, assigner.sessionOf(earlier));
+        assertEquals(other, assigner.sessionOf(later));
+        assertEquals("unsubscribe " + taken + " " + later, events.get(0));
+        assertEquals(3, events.size());
+        assertTrue(events.contains("subscribe " + taken + " " + earlier));
+        assertTrue(events.contains("subscribe " + other + " " + later));
+    }
+
+    /**
+     * 해제/등록을 기록하면서 세션별 등록 수가 한 번이라도 한도를 넘으면 실패시킨다.
+     *
+     * @return 배정하지 못한 코드 수
+     */
+    private int rebalance(KisSessionAssigner<String> assigner, SortedSet<String> codes, int codesPerSession) {
+        return assigner.rebalance(codes,
+                (session, code) -> {
+                    events.add("unsubscribe " + session + " " + code);
+                    load.merge(session, -1, Integer::sum);
+                },
+                (session, code) -> {
+                    events.add("subscribe " + session + " " + code);
+                    int count = load.merge(session, 1, Integer::sum);
+                    assertTrue(count <= codesPerSession, "등록 중 세션 한도 초과: " + session);
+                });
+    }
+
+    private static Map<String, String> mapping(KisSessionAssigner<String> assigner, SortedSet<String> codes) {
+        Map<String, String> mapping = new HashMap<>();
+        for (String code : codes) {
+            mapping.put(code, assigner.sessionOf(code));
+        }
+        return mapping;
+    }
+
+    private static SortedSet<String> codes(int from, int to) {
+        SortedSet<String> codes = new TreeSet<>();
+        for (int i = from; i < to; i++) {
+            codes.add(String.format("%06d", i));
+        }
+        return codes;
+    }
+
+    /** 세션 sessionIndex의 rendezvous 점수가 가장 높은 코드 중 정렬 순서가 가장 앞인 것 */
+    private static String codePreferring(int sessionIndex, int sessionCount) {
+        for (int i = 0; i < 1000; i++) {
+            String code = String.format("%06d", i);
+            int best = 0;
+            for (int s = 1; s < sessionCount; s++) {
+                if (KisSessionAssigner.sessionScore(code, s) > KisSessionAssigner.sessionScore(code, best)) {
+                    best = s;
+                }
+            }
+            if (best == sessionIndex) {
+                return code;
+            }
+        }
+        throw new AssertionError("세션 " + sessionIndex + "을 선호하는 코드가 없습니다");
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.backend.websocket;
+
+import com.example.backend.dto.OrderBook;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderBookStoreTest {
+
+    private final KisFrameParser parser = new KisFrameParser(OrderBook.FIELD_COUNT);
+    private final OrderBookStore store = new OrderBookStore();
+
+    @Test
+    void returnsSameBookForSameCodeAcrossGrowth() {
+        Map<String, OrderBook> books = new HashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            String code = String.format("%06d", i);
+            books.put(code, store.get(record(code, 72000)));
+        }
+
+        assertEquals(1000, store.size());
+        books.forEach((code, book) -> {
+            assertSame(book, store.get(record(code, 72000)));
+            assertEquals(code, book.getStockId());
+        });
+        assertEquals(1000, store.size());
+    }
+
+    @Test
+    void storedBookDetectsChangeAgainstPreviousRecord() {
+        KisFrameParser first = record("005930", 72000);
+        assertTrue(store.get(first).update(first));
+
+        KisFrameParser same = record("005930", 72000);
+        assertFalse(store.get(same).update(same));
+
+        KisFrameParser moved = record("005930", 72100);
+        OrderBook book = store.get(moved);
+        assertTrue(book.update(moved));
+        assertEquals(72100, book.getAskPrice(0));
+
+        KisFrameParser other = record("000660", 72100);
+        assertTrue(store.get(other).update(other));
+    }
+
+    @Test
+    void rejectsRecordWithoutCode() {
+        assertThrows(IllegalArgumentException.class, () -> store.get(record("", 72000)));
+    }
+
+    private KisFrameParser record(String code, int askPrice) {
+        String[] fields = new String[OrderBook.FIELD_COUNT];
+        Arrays.fill(fields, "0");
+        fields[0] = code;
+        fields[1] = "093354";
+        fields[3] = String.valueOf(askPrice);
+        return parser.parseRecord(String.join("^", fields));
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.backend.websocket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionSenderTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ManualExecutor writer = new ManualExecutor();
+    private final Counter conflated = registry.counter("conflated");
+    private final Counter laggards = registry.counter("laggards");
+    private final StubSession session = new StubSession();
+
+    @Test
+    void switchesToConflationWhenTheQueueIsFull() {
+        SessionSender.Shared shared = shared(2, TimeUnit.SECONDS.toNanos(10));
+        SessionSender sender = new SessionSender(session.proxy, false, shared);
+
+        offer(sender, "A", "A1");
+        offer(sender, "B", "B1");
+        offer(sender, "A", "A2");
+        offer(sender, "A", "A3");
+        offer(sender, "B", "B2");
+
+        // 큐 2건 + 종목별 최신 1건씩
+        assertEquals(4, shared.queued.get());
+        assertEquals(1.0, conflated.count());
+
+        writer.runAll();
+
+        assertEquals(List.of("A1", "B1", "A3", "B2"), session.sent);
+        assertEquals(0, shared.queued.get());
+    }
+
+    @Test
+    void keepsPerKeyOrderWhileCatchingUpAndReturnsToQueueMode() {
+        SessionSender.Shared shared = shared(2, TimeUnit.SECONDS.toNanos(10));
+        SessionSender sender = new SessionSender(session.proxy, false, shared);
+        offer(sender, "A", "A1");
+        offer(sender, "B", "B1");
+        offer(sender, "A", "A2");
+        // A1을 보낸 직후 큐에 자리가 났어도 A3은 밀린 A2보다 먼저 나가면 안 된다
+        session.onSend = frame -> {
+            if (frame.equals("A1")) {
+                offer(sender, "A", "A3");
+            }
+        };
+
+        writer.runAll();
+
+        assertEquals(List.of("A1", "B1", "A3"), session.sent);
+
+        // 다 따라잡았으므로 다시 큐 모드: 같은 종목도 모두 순서대로 나간다
+        session.onSend = frame -> { };
+        offer(sender, "A", "A4");
+        offer(sender, "A", "A5");
+        writer.runAll();
+
+        assertEquals(List.of("A1", "B1", "A3", "A4", "A5"), session.sent);
+        assertEquals(1.0, conflated.count());
+        assertEquals(0, shared.queued.get());
+    }
+
+    @Test
+    void closesSessionThatStaysBehindLongerThanTheLaggardTimeout() throws InterruptedException {
+        SessionSender.Shared shared = shared(1, 0);
+        SessionSender sender = new SessionSender(session.proxy, false, shared);
+
+        offer(sender, "A", "A1");
+        offer(sender, "A", "A2");
+        Thread.sleep(2);
+        offer(sender, "B", "B1");
+        offer(sender, "C", "C1");
+        writer.runAll();
+
+        assertEquals(CloseStatus.SESSION_NOT_RELIABLE, session.closeStatus);
+        assertEquals(1.0, laggards.count());
+        assertEquals(List.of(), session.sent);
+        assertEquals(0, shared.queued.get());
+    }
+
+    @Test
+    void discardReleasesEveryQueuedAndConflatedMessageFromTheGauge() {
+        SessionSender.Shared shared = shared(2, TimeUnit.SECONDS.toNanos(10));
+        SessionSender first = new SessionSender(session.proxy, false, shared);
+        SessionSender second = new SessionSender(new StubSession().proxy, false, shared);
+        offer(first, "A", "A1");
+        offer(first, "B", "B1");
+        offer(first, "C", "C1");
+        offer(second, "A", "A1");
+        assertEquals(4, shared.queued.get());
+
+        first.discard();
+        first.discard();
+        offer(first, "D", "D1");
+
+        assertEquals(1, shared.queued.get());
+        writer.runAll();
+        assertEquals(List.of(), session.sent);
+        assertEquals(0, shared.queued.get());
+    }
+
+    private SessionSender.Shared shared(int capacity, long laggardTimeoutNanos) {
+        return new SessionSender.Shared(writer, null, capacity, laggardTimeoutNanos, 0,
+                registry.timer("latency"), conflated, laggards);
+    }
+
+    private static void offer(SessionSender sender, String key, String payload) {
+        sender.offer(key, new SessionSender.Push(new TextMessage(payload), null));
+    }
+
+    /** 제출된 작업을 테스트가 부를 때 호출 스레드에서 순서대로 실행한다 */
+    private static final class ManualExecutor extends AbstractExecutorService {
+        private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+        void runAll() {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                task.run();
+            }
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        @Override
+        public void shutdown() {
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return List.of();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return false;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return false;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return true;
+        }
+    }
+
+    /** 보낸 payload와 종료 상태만 기록하는 세션 */
+    private static final class StubSession {
+        final List<String> sent = new ArrayList<>();
+        Consumer<String> onSend = frame -> { };
+        CloseStatus closeStatus;
+        boolean open = true;
+
+        final WebSocketSession proxy = (WebSocketSession) Proxy.newProxyInstance(
+                WebSocketSession.class.getClassLoader(), new Class<?>[]{WebSocketSession.class},
+                (target, method, args) -> switch (method.getName()) {
+                    case "getId" -> "stub";
+                    case "isOpen" -> open;
+                    case "sendMessage" -> {
+                        String payload = ((TextMessage) args[0]).getPayload();
+                        sent.add(payload);
+                        onSend.accept(payload);
+                        yield null;
+                    }
+                    case "close" -> {
+                        open = false;
+                        closeStatus = args == null ? CloseStatus.NORMAL : (CloseStatus) args[0];
+                        yield null;
+                    }
+                    case "hashCode" -> System.identityHashCode(target);
+                    case "equals" -> target == args[0];
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
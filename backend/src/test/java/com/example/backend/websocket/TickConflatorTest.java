@@ -0,0 +1,128 @@
+package com.example.backend.websocket;
+
+import com.example.backend.dto.Tick;
+import com.example.backend.service.KafkaProducerService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TickConflatorTest {
+
+    private static final String RECORD = "005930^093354^71900^5^-100^-0.14^72023.83^72100^72400^71700^71900^71800^1^3052507^219853241700^5105^6937^1832^84.90^1366314^1159996^1^0.39^20.28^090020^5^-200^090820^5^-500^092619^2^200^20230612^20^N^65945^216924^1118750^2199206^0.05^2424142^125.92^0^^72100";
+    private static final String REALTIME = "realtime-data";
+    private static final String RAW = "realtime-raw";
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final RecordingProducer producer = new RecordingProducer(registry);
+
+    @Test
+    void flushSendsLatestTickPerCodeWithSummedVolume() {
+        TickConflator conflator = conflator(true, "");
+        conflator.publish(tick("005930", "093354", 71900, 5, 3052505));
+        conflator.publish(tick("005930", "093355", 72000, 7, 3052512));
+        conflator.publish(tick("000660", "093355", 130000, 3, 503));
+        Tick latest = tick("005930", "093356", 72100, 2, 3052514);
+        conflator.publish(latest);
+        assertEquals(List.of(), producer.sent, "flush 전에는 보내지 않는다");
+
+        conflator.flush();
+
+        assertEquals(2, producer.sent.size());
+        Tick samsung = producer.sentTo(REALTIME, "005930").get(0);
+        // 가격, 시각, 누적 거래량은 마지막 체결 값, 체결 거래량은 합
+        assertEquals(latest.withTransactionVolume(14), samsung);
+        assertEquals(72100, samsung.getCurrentPrice());
+        assertEquals(93356, samsung.getTradingTime());
+        assertEquals(3052514L, samsung.getAccumulatedVolume());
+        assertEquals(14L, samsung.getTransactionVolume());
+        assertEquals(List.of(tick("000660", "093355", 130000, 3, 503)), producer.sentTo(REALTIME, "000660"));
+        assertEquals(4.0, registry.counter("kis.conflation.offered").count());
+        assertEquals(2.0, registry.counter("kis.conflation.published").count());
+
+        // 보낸 슬롯은 비워지므로 다음 flush는 그 사이 들어온 체결만 보낸다
+        conflator.flush();
+        assertEquals(2, producer.sent.size());
+        Tick next = tick("005930", "093357", 72200, 4, 3052518);
+        conflator.publish(next);
+        conflator.flush();
+        assertEquals(List.of(latest.withTransactionVolume(14), next), producer.sentTo(REALTIME, "005930"));
+    }
+
+    @Test
+    void disabledConflatorSendsEveryTickImmediately() {
+        TickConflator conflator = conflator(false, RAW);
+        Tick first = tick("005930", "093354", 71900, 5, 3052505);
+        Tick second = tick("005930", "093355", 72000, 7, 3052512);
+
+        conflator.publish(first);
+        conflator.publish(second);
+
+        assertEquals(List.of(first, second), producer.sentTo(REALTIME, "005930"));
+        assertEquals(2, producer.sent.size(), "비활성이면 원본 토픽으로도 보내지 않는다");
+        conflator.flush();
+        assertEquals(2, producer.sent.size());
+        assertEquals(0.0, registry.counter("kis.conflation.offered").count());
+    }
+
+    @Test
+    void rawTopicReceivesEveryTickBeforeConflation() {
+        TickConflator conflator = conflator(true, RAW);
+        Tick first = tick("005930", "093354", 71900, 5, 3052505);
+        Tick second = tick("005930", "093355", 72000, 7, 3052512);
+
+        conflator.publish(first);
+        conflator.publish(second);
+
+        assertEquals(List.of(first, second), producer.sentTo(RAW, "005930"));
+        assertEquals(List.of(), producer.sentTo(REALTIME, "005930"));
+
+        conflator.flush();
+        assertEquals(List.of(second.withTransactionVolume(12)), producer.sentTo(REALTIME, "005930"));
+        assertEquals(List.of(first, second), producer.sentTo(RAW, "005930"));
+    }
+
+    private TickConflator conflator(boolean enabled, String rawTopic) {
+        return new TickConflator(producer, registry, REALTIME, rawTopic, enabled, 100);
+    }
+
+    /** 종목 코드, 체결 시각, 현재가, 체결 거래량, 누적 거래량만 바꾼 체결 */
+    private static Tick tick(String code, String time, int price, long volume, long accumulatedVolume) {
+        String[] fields = RECORD.split("\\^", -1);
+        fields[0] = code;
+        fields[1] = time;
+        fields[2] = String.valueOf(price);
+        fields[12] = String.valueOf(volume);
+        fields[13] = String.valueOf(accumulatedVolume);
+        return Tick.parse(String.join("^", fields));
+    }
+
+    /** Kafka로 보내지 않고 sendTick 호출만 기록한다 */
+    private static final class RecordingProducer extends KafkaProducerService {
+        final List<Object[]> sent = new ArrayList<>();
+
+        RecordingProducer(MeterRegistry meterRegistry) {
+            super(null, null, null, meterRegistry, 1, 0);
+        }
+
+        @Override
+        public void sendTick(String topic, Tick tick) {
+            sent.add(new Object[]{topic, tick});
+        }
+
+        List<Tick> sentTo(String topic, String code) {
+            List<Tick> ticks = new ArrayList<>();
+            for (Object[] send : sent) {
+                Tick tick = (Tick) send[1];
+                if (send[0].equals(topic) && tick.getStockId().equals(code)) {
+                    ticks.add(tick);
+                }
+            }
+            return ticks;
+        }
+    }
+}
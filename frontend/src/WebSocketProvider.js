@@ -1,11 +1,99 @@
-import React, { createContext, useContext, useEffect, useState } from 'react';
+import React, {
+  createContext,
+  useCallback,
+  useContext,
+  useEffect,
+  useRef,
+  useState,
+} from 'react';
 
 const WebSocketContext = createContext(null);
 
+// compact 형식: 짧은 키 + 바뀐 필드만 받는다 (서버 CompactTickCodec과 같은 표)
+const WS_URL = `wss://${process.env.REACT_APP_STOCK_BACKEND_URL}/ws/stock?format=compact`;
+const COMPACT_KEYS = {
+  s: 'stockId',
+  t: 'tradingTime',
+  p: 'currentPrice',
+  g: 'fluctuationSign',
+  c: 'fluctuationPrice',
+  r: 'fluctuationRate',
+  v: 'transactionVolume',
+  a: 'accumulatedVolume',
+  w: 'weightedAveragePrice',
+  ap: 'askPrice',
+  bp: 'bidPrice',
+  sc: 'sellCount',
+  bc: 'buyCount',
+};
+
 export const WebSocketProvider = ({ children }) => {
   const [socket, setSocket] = useState(null);
   const [stockData, setStockData] = useState({});
   const [isConnected, setIsConnected] = useState(false);
+  // 구독 중인 종목코드 → 구독한 화면 수 (여러 화면이 같은 종목을 구독할 수 있음)
+  const subscriptionsRef = useRef(new Map());
+  const socketRef = useRef(null);
+  // 종목별 마지막 체결 (compact delta를 전체 체결로 복원할 때 사용)
+  const lastTicksRef = useRef({});
+  // 복원된 메시지를 받는 화면 리스너
+  const listenersRef = useRef(new Set());
+
+  // 수신 메시지 리스너 등록. 반환 함수로 해지
+  const addMessageListener = useCallback((listener) => {
+    listenersRef.current.add(listener);
+    return () => listenersRef.current.delete(listener);
+  }, []);
+
+  // compact 체결({"s":..,"p":..})이면 이전 체결에 병합해 원래 키의 전체 체결로 복원
+  const decode = (message) => {
+    if (message.s === undefined) {
+      return message;
+    }
+    const tick = { ...lastTicksRef.current[message.s] };
+    Object.keys(message).forEach((key) => {
+      tick[COMPACT_KEYS[key] || key] = message[key];
+    });
+    lastTicksRef.current[message.s] = tick;
+    return tick;
+  };
+
+  const sendSubscription = (type, stockIds) => {
+    const ws = socketRef.current;
+    if (stockIds.length > 0 && ws && ws.readyState === WebSocket.OPEN) {
+      ws.send(JSON.stringify({ type, stockIds }));
+    }
+  };
+
+  // 종목 실시간 시세 구독. 서버는 구독한 종목만 보낸다
+  const subscribe = useCallback((stockIds) => {
+    const added = [];
+    stockIds.forEach((stockId) => {
+      const count = subscriptionsRef.current.get(stockId) || 0;
+      subscriptionsRef.current.set(stockId, count + 1);
+      if (count === 0) {
+        added.push(stockId);
+      }
+    });
+    sendSubscription('subscribe', added);
+  }, []);
+
+  // 구독 해지. 마지막 화면이 해지할 때만 서버에 알린다
+  const unsubscribe = useCallback((stockIds) => {
+    const removed = [];
+    stockIds.forEach((stockId) => {
+      const count = subscriptionsRef.current.get(stockId) || 0;
+      if (count <= 1) {
+        subscriptionsRef.current.delete(stockId);
+        if (count === 1) {
+          removed.push(stockId);
+        }
+      } else {
+        subscriptionsRef.current.set(stockId, count - 1);
+      }
+    });
+    sendSubscription('unsubscribe', removed);
+  }, []);
 
   // 특정 종목 데이터를 업데이트하는 함수
   const updateStockData = (stockId, newData) => {
@@ -24,46 +112,65 @@ export const WebSocketProvider = ({ children }) => {
   };
 
   useEffect(() => {
-    // WebSocket 연결 생성
-    const ws = new WebSocket(
-      `wss://${process.env.REACT_APP_STOCK_BACKEND_URL}/ws/stock`
-    );
-
-    ws.onopen = () => {
-      console.log('[LOG] WebSocket 연결 성공');
-      setIsConnected(true);
-    };
+    let reconnectTimer = null;
+    let disposed = false;
 
-    ws.onmessage = (event) => {
-      const data = JSON.parse(event.data);
-      // 수신한 데이터로 기존 상태 업데이트
-      setStockData((prevData) => ({
-        ...prevData,
-        [data.stockId]: { ...prevData[data.stockId], ...data },
-      }));
-    };
+    // 소켓을 만들고 핸들러를 붙인다. 처음 연결과 재연결 모두 여기서 만든다
+    const connect = () => {
+      const ws = new WebSocket(WS_URL);
 
-    ws.onerror = (error) => {
-      console.error('[ERROR] WebSocket 에러 발생:', error);
-      setIsConnected(false);
-    };
+      ws.onopen = () => {
+        console.log('[LOG] WebSocket 연결 성공');
+        setIsConnected(true);
+        // 새 연결은 서버 delta 상태도 새로 시작한다
+        lastTicksRef.current = {};
+        // 연결 전에 요청된 구독을 한 번에 보낸다
+        sendSubscription('subscribe', Array.from(subscriptionsRef.current.keys()));
+      };
+
+      ws.onmessage = (event) => {
+        const data = JSON.parse(event.data);
+        // 서버가 묶어 보내면 배열. 한 프레임은 한 번만 상태에 반영한다
+        const updates = (Array.isArray(data) ? data : [data]).map(decode);
+        // 수신한 데이터로 기존 상태 업데이트
+        setStockData((prevData) => {
+          const nextData = { ...prevData };
+          updates.forEach((update) => {
+            nextData[update.stockId] = {
+              ...nextData[update.stockId],
+              ...update,
+            };
+          });
+          return nextData;
+        });
+        listenersRef.current.forEach((listener) => listener(updates));
+      };
+
+      ws.onerror = (error) => {
+        console.error('[ERROR] WebSocket 에러 발생:', error);
+        setIsConnected(false);
+      };
+
+      ws.onclose = () => {
+        setIsConnected(false);
+        // 화면을 떠나며 닫은 경우는 다시 연결하지 않는다
+        if (disposed) {
+          return;
+        }
+        console.log('[ERROR] WebSocket 연결 종료됨, 5초 후 재연결 시도...');
+        reconnectTimer = setTimeout(connect, 5000);
+      };
 
-    ws.onclose = () => {
-      console.log('[ERROR] WebSocket 연결 종료됨, 5초 후 재연결 시도...');
-      setIsConnected(false);
-      setTimeout(() => {
-        setSocket(
-          new WebSocket(
-            `wss://${process.env.REACT_APP_STOCK_BACKEND_URL}/ws/stock`
-          )
-        );
-      }, 5000);
+      socketRef.current = ws;
+      setSocket(ws);
     };
 
-    setSocket(ws);
+    connect();
 
     return () => {
-      ws.close();
+      disposed = true;
+      clearTimeout(reconnectTimer);
+      socketRef.current.close();
     };
   }, []);
 
@@ -75,6 +182,9 @@ export const WebSocketProvider = ({ children }) => {
         isConnected,
         updateStockData,
         setInitialStockData,
+        subscribe,
+        unsubscribe,
+        addMessageListener,
       }}
     >
       {children}
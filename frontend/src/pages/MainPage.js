@@ -13,8 +13,14 @@ const MainPage = () => {
   const [filteredStocks, setFilteredStocks] = useState([]);
 
   // Provider에서 전역 상태와 업데이트 함수를 가져옴
-  const { stockData, isConnected, updateStockData, setInitialStockData } =
-    useWebSocket();
+  const {
+    stockData,
+    isConnected,
+    updateStockData,
+    setInitialStockData,
+    subscribe,
+    unsubscribe,
+  } = useWebSocket();
 
   const handleSearch = () => {
     if (searchTerm.trim()) {
@@ -121,6 +127,12 @@ const MainPage = () => {
     fetchStockIds();
   }, []);
 
+  // 화면에 보이는 종목만 실시간 시세 구독
+  useEffect(() => {
+    subscribe(filteredStocks);
+    return () => unsubscribe(filteredStocks);
+  }, [filteredStocks, subscribe, unsubscribe]);
+
   // Redis fallback: filteredStocks에 있는 각 종목에 대해, 현재 데이터가 없으면 fallback 데이터로 보충
   useEffect(() => {
     filteredStocks.forEach((stockId) => {
@@ -15,7 +15,8 @@ const StockPage = () => {
   const navigate = useNavigate();
 
   // 전역 WebSocketProvider에서 socket 및 업데이트 함수를 가져옴
-  const { socket, updateStockData } = useWebSocket();
+  const { updateStockData, subscribe, unsubscribe, addMessageListener } =
+    useWebSocket();
 
   // fallback 요청이 한 번만 시도되도록 하는 플래그
   const fallbackAttempted = useRef(false);
@@ -90,20 +91,25 @@ const StockPage = () => {
     fetchDailyData();
   }, [stockId]);
 
-  // WebSocket 메시지 처리: 해당 stockId의 메시지를 받아서 selectedStock 배열에 추가 (최대 10개)
+  // 이 종목 실시간 시세 구독
   useEffect(() => {
-    if (!socket) return;
-    const handleMessage = (event) => {
-      const data = JSON.parse(event.data);
-      if (data.stockId === stockId) {
-        setSelectedStock((prev) => [data, ...prev].slice(0, 10));
+    subscribe([stockId]);
+    return () => unsubscribe([stockId]);
+  }, [stockId, subscribe, unsubscribe]);
+
+  // WebSocket 메시지 처리: 해당 stockId의 체결을 받아서 selectedStock 배열에 추가 (최대 10개)
+  useEffect(() => {
+    // Provider가 복원한 메시지 (묶어 받으면 오래된 것부터)
+    return addMessageListener((updates) => {
+      // 같은 소켓으로 오는 호가({"stockId":..,"orderBook":{..}})는 체결 목록에 넣지 않는다
+      const received = updates
+        .filter((item) => item.stockId === stockId && !item.orderBook && item.currentPrice !== undefined)
+        .reverse();
+      if (received.length > 0) {
+        setSelectedStock((prev) => [...received, ...prev].slice(0, 10));
       }
-    };
-    socket.addEventListener('message', handleMessage);
-    return () => {
-      socket.removeEventListener('message', handleMessage);
-    };
-  }, [socket, stockId]);
+    });
+  }, [addMessageListener, stockId]);
 
   // fallback: 만약 selectedStock가 비어 있거나 첫 번째 항목에 currentPrice가 없으면 fallback 요청을 한 번만 시도
   useEffect(() => {